@@ -0,0 +1,98 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench.jmh;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mazerob.bench.Maze;
+import mazerob.bench.MazeGenerator;
+import mazerob.bench.MazeKind;
+import mazerob.bench.RunMode;
+import mazerob.bench.SimulatedRobot;
+import mazerob.bench.WallFollower;
+import mazerob.pc.JunctionGraph;
+import mazerob.pc.JunctionMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of route searches over a {@link mazerob.pc.JunctionGraph}
+ * mapped by a wall follower
+ *
+ * @author Pedro I. López
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JunctionGraphBenchmark {
+    /** Length in mm of one cell */
+    private static final double CELL_SIZE = 100.0;
+
+    /** Number of precomputed node pairs cycled through */
+    private static final int PAIRS = 1024;
+
+    /** Name of the {@link mazerob.bench.MazeKind} of the maze */
+    @Param({"PERFECT", "BRAIDED", "OPEN_ROOM"})
+    public String kind;
+
+    /** Side of the maze in cells */
+    @Param({"100", "1000"})
+    public int size;
+
+    /** Map of the junctions along the walls connected to the outer wall,
+     * the whole maze when it is {@code PERFECT} */
+    private JunctionGraph graph;
+
+    /** Random start and goal nodes */
+    private int[] from, to;
+
+    /** Next pair to search */
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Maze maze = MazeGenerator.generate(MazeKind.valueOf(kind), size, size,
+            CELL_SIZE, 0);
+        SimulatedRobot robot = new SimulatedRobot(maze, CELL_SIZE, 90.0,
+            Long.MAX_VALUE);
+        JunctionMapper mapper = new JunctionMapper(robot, CELL_SIZE);
+        Random random = new Random(0);
+
+        new WallFollower(CELL_SIZE).solve(mapper,
+            RunMode.EXPLORE.goalOf(robot));
+        graph = mapper.getGraph();
+        from = new int[PAIRS];
+        to = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = random.nextInt(graph.getNodeCount());
+            to[i] = random.nextInt(graph.getNodeCount());
+        }
+    }
+
+    @Benchmark
+    public int[] shortestPath() {
+        next = (next + 1) & (PAIRS - 1);
+        return graph.shortestPath(from[next], to[next]);
+    }
+
+    @Benchmark
+    public int[] pathToUnexplored() {
+        next = (next + 1) & (PAIRS - 1);
+        return graph.pathToUnexplored(from[next]);
+    }
+}
@@ -0,0 +1,119 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lejos.robotics.RangeReadings;
+import mazerob.bench.Maze;
+import mazerob.bench.MazeGenerator;
+import mazerob.bench.MazeKind;
+import mazerob.bench.SimulatedRobot;
+import mazerob.bench.Solver;
+import mazerob.bench.SolverKind;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of maze generation, simulated scans and the map update
+ * and planning loops of the {@link mazerob.bench.SolverKind} solvers
+ *
+ * @author Pedro I. López
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanningBenchmark {
+    /** Length in mm of one cell */
+    private static final double CELL_SIZE = 100.0;
+
+    /** Angle in degrees of a simulated quarter turn */
+    private static final double QUARTER_TURN = 90.0;
+
+    /** Speeds given to the solvers, as {@code BENCH_TRANSLATION_SPEED}
+     * and {@code R0_ROTATION_SPEED} in {@code Makefile} */
+    private static final double TRANSLATION_SPEED = 240.0,
+        ROTATION_SPEED = 90.0;
+
+    /** Name of the {@link mazerob.bench.MazeKind} of the maze */
+    @Param({"PERFECT", "BRAIDED", "OPEN_ROOM"})
+    public String kind;
+
+    /** Side of the maze in cells */
+    @Param({"10", "100"})
+    public int size;
+
+    /** Maze shared by the benchmarks of one trial */
+    private Maze maze;
+
+    /** Robot standing at the start of {@link #maze} */
+    private SimulatedRobot robot;
+
+    /** Pool given to the solvers for work off the benchmark thread */
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        maze = MazeGenerator.generate(MazeKind.valueOf(kind), size, size,
+            CELL_SIZE, 0);
+        robot = new SimulatedRobot(maze, CELL_SIZE, QUARTER_TURN,
+            Long.MAX_VALUE);
+        executor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Maze generate() {
+        return MazeGenerator.generate(MazeKind.valueOf(kind), size, size,
+            CELL_SIZE, 0);
+    }
+
+    @Benchmark
+    public RangeReadings scan() throws IOException {
+        return robot.scan();
+    }
+
+    @Benchmark
+    public boolean solveWallFollower() throws IOException {
+        return solve(SolverKind.WALL_FOLLOWER);
+    }
+
+    @Benchmark
+    public boolean solveDepthFirst() throws IOException {
+        return solve(SolverKind.DEPTH_FIRST);
+    }
+
+    /** @return True if a fresh solver of kind {@code solverKind} solves
+     * {@link #maze} */
+    private boolean solve(SolverKind solverKind) throws IOException {
+        SimulatedRobot runner = new SimulatedRobot(maze, CELL_SIZE,
+            QUARTER_TURN, Long.MAX_VALUE);
+        Solver solver = solverKind.create(CELL_SIZE, TRANSLATION_SPEED,
+            QUARTER_TURN, ROTATION_SPEED, executor);
+
+        solver.solve(runner, runner);
+        return runner.isGoalReached();
+    }
+}
@@ -0,0 +1,156 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import lejos.robotics.RangeReadings;
+import mazerob.conn.CommandCode;
+import mazerob.conn.RemotelyControllable;
+import mazerob.pc.Robot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Microbenchmarks of the PC/NXT command protocol
+ *
+ * <p>Encoding goes through a {@link mazerob.pc.Robot} writing to a stream
+ * that discards everything, so only the protocol code is measured, not a
+ * link.  Decoding repeats the loop of {@link mazerob.nxt.RobotApp#main},
+ * which cannot be loaded off the NXT.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+    /** Command codes indexed by ordinal, as in {@link
+     * mazerob.nxt.RobotApp#main} */
+    private static final CommandCode[] COMMAND_CODES = CommandCode.values();
+
+    /** Robot sending commands to nowhere */
+    private Robot robot;
+
+    /** Encoded mixed command sequence and a reader over it */
+    private ByteArrayInputStream commandBytes;
+    private DataInputStream commandInput;
+
+    /** Range readings of one scan, encoded and as objects */
+    private RangeReadings readings;
+    private ByteArrayOutputStream readingsOutBytes;
+    private DataOutputStream readingsOutput;
+    private ByteArrayInputStream readingsInBytes;
+    private DataInputStream readingsInput;
+
+    @Setup
+    public void setUp() throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        Robot recorder = new Robot(new ByteArrayInputStream(new byte[0]),
+            encoded, 43.2, 139.0, false, 90.0, 100.0, 85.0);
+
+        robot = new Robot(new ByteArrayInputStream(new byte[0]),
+            new NullOutputStream(), 43.2, 139.0, false, 90.0, 100.0, 85.0);
+
+        encoded.reset();
+        recorder.translateForward();
+        recorder.rotateRight();
+        recorder.translate(150.0);
+        recorder.rotate(-45.0);
+        recorder.translateBackward();
+        recorder.rotateLeft();
+        commandBytes = new ByteArrayInputStream(encoded.toByteArray());
+        commandInput = new DataInputStream(commandBytes);
+
+        readings = new RangeReadings(
+            RemotelyControllable.SCANNING_ANGLES.length);
+        for (int i = 0; i < RemotelyControllable.SCANNING_ANGLES.length; i++) {
+            readings.setRange(i, RemotelyControllable.SCANNING_ANGLES[i],
+                50f + 40f * i);
+        }
+        readingsOutBytes = new ByteArrayOutputStream();
+        readingsOutput = new DataOutputStream(readingsOutBytes);
+        readings.dumpObject(readingsOutput);
+        readingsInBytes = new ByteArrayInputStream(
+            readingsOutBytes.toByteArray());
+        readingsInput = new DataInputStream(readingsInBytes);
+    }
+
+    @Benchmark
+    public void encodeTranslate() throws IOException {
+        robot.translate(150.0);
+    }
+
+    @Benchmark
+    public void encodeTranslateForward() throws IOException {
+        robot.translateForward();
+    }
+
+    @Benchmark
+    public void encodeRotate() throws IOException {
+        robot.rotate(-45.0);
+    }
+
+    @Benchmark
+    public void decodeCommands(Blackhole blackhole) throws IOException {
+        commandBytes.reset();
+        while (commandBytes.available() > 0) {
+            CommandCode commandCode = COMMAND_CODES[commandInput.readInt()];
+
+            switch (commandCode) {
+                case TRANSLATE:
+                case ROTATE:
+                    blackhole.consume(commandInput.readDouble());
+                    break;
+                default:
+                    break;
+            }
+            blackhole.consume(commandCode);
+        }
+    }
+
+    @Benchmark
+    public int dumpRangeReadings() throws IOException {
+        readingsOutBytes.reset();
+        readings.dumpObject(readingsOutput);
+        return readingsOutBytes.size();
+    }
+
+    @Benchmark
+    public RangeReadings loadRangeReadings() throws IOException {
+        RangeReadings loaded = new RangeReadings(
+            RemotelyControllable.SCANNING_ANGLES.length);
+
+        readingsInBytes.reset();
+        loaded.loadObject(readingsInput);
+        return loaded;
+    }
+
+    /** Output stream that discards every byte */
+    private static class NullOutputStream extends OutputStream {
+        public void write(int b) {
+        }
+
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package lejos.pc.comm;
+
+/**
+ * Stand-in for the leJOS NXJ 0.9.1 class of the same name, protocol
+ * constants only
+ *
+ * @author Pedro I. López
+ *
+ */
+public class NXTCommFactory {
+    /** USB protocol */
+    public static final int USB = 1;
+
+    /** Bluetooth protocol */
+    public static final int BLUETOOTH = 2;
+
+    /** Any protocol */
+    public static final int ALL_PROTOCOLS = USB | BLUETOOTH;
+}
@@ -0,0 +1,18 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package lejos.pc.comm;
+
+/**
+ * Stand-in for the leJOS NXJ 0.9.1 interface of the same name
+ *
+ * @author Pedro I. López
+ *
+ */
+public interface NXTCommLogListener {
+    /** Logs a message */
+    public void logEvent(String message);
+
+    /** Logs an exception */
+    public void logEvent(Throwable throwable);
+}
@@ -0,0 +1,42 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package lejos.pc.comm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stand-in for the leJOS NXJ 0.9.1 class of the same name
+ *
+ * <p>There is no Bluetooth stack behind it: {@link #connectTo} always
+ * fails.  Build against the real {@code pccomm.jar} to drive an NXT.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class NXTConnector {
+    /** Ignored */
+    public void addLogListener(NXTCommLogListener listener) {
+    }
+
+    /** @return Always false */
+    public boolean connectTo(String nxt, String addr, int protocols) {
+        return false;
+    }
+
+    /** @return Always null, there is no connection */
+    public OutputStream getOutputStream() {
+        return null;
+    }
+
+    /** @return Always null, there is no connection */
+    public InputStream getInputStream() {
+        return null;
+    }
+
+    /** Does nothing */
+    public void close() throws IOException {
+    }
+}
@@ -0,0 +1,40 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package lejos.robotics;
+
+/**
+ * Stand-in for the leJOS NXJ 0.9.1 class of the same name: one range
+ * reading at an angle
+ *
+ * @author Pedro I. López
+ *
+ */
+public class RangeReading {
+    private float angle, range;
+
+    /**
+     * @param angle Angle of the reading in degrees
+     * @param range Range in cm, negative if invalid
+     *
+     */
+    public RangeReading(float angle, float range) {
+        this.angle = angle;
+        this.range = range;
+    }
+
+    /** @return Range in cm, negative if invalid */
+    public float getRange() {
+        return range;
+    }
+
+    /** @return Angle of the reading in degrees */
+    public float getAngle() {
+        return angle;
+    }
+
+    /** @return True if the range is invalid */
+    public boolean invalidReading() {
+        return range < 0;
+    }
+}
@@ -0,0 +1,91 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package lejos.robotics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Stand-in for the leJOS NXJ 0.9.1 class of the same name, with the same
+ * stream encoding: the number of readings as a byte, then angle and range
+ * of every reading as floats
+ *
+ * @author Pedro I. López
+ *
+ */
+public class RangeReadings extends ArrayList<RangeReading>
+        implements Transmittable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param numReadings Number of readings, all invalid at first
+     *
+     */
+    public RangeReadings(int numReadings) {
+        super(numReadings);
+        for (int i = 0; i < numReadings; i++) {
+            add(new RangeReading(0, -1));
+        }
+    }
+
+    /** @return Range in cm of reading {@code index}, negative if
+     * invalid */
+    public float getRange(int index) {
+        return get(index).getRange();
+    }
+
+    /** @return Angle in degrees of reading {@code index} */
+    public float getAngle(int index) {
+        return get(index).getAngle();
+    }
+
+    /** @return True if any reading is invalid */
+    public boolean incomplete() {
+        for (RangeReading reading : this) {
+            if (reading.invalidReading()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return Number of readings */
+    public int getNumReadings() {
+        return size();
+    }
+
+    /** Replaces reading {@code index} */
+    public void setRange(int index, float angle, float range) {
+        set(index, new RangeReading(angle, range));
+    }
+
+    /** Prints every reading to standard output */
+    public void printReadings() {
+        for (int i = 0; i < size(); i++) {
+            System.out.println("Range " + i + " (angle " + getAngle(i)
+                + ") = " + getRange(i));
+        }
+    }
+
+    public void dumpObject(DataOutputStream dos) throws IOException {
+        dos.writeByte(size());
+        for (int i = 0; i < size(); i++) {
+            dos.writeFloat(getAngle(i));
+            dos.writeFloat(getRange(i));
+        }
+        dos.flush();
+    }
+
+    public void loadObject(DataInputStream dis) throws IOException {
+        int numReadings = dis.readByte();
+        clear();
+        for (int i = 0; i < numReadings; i++) {
+            float angle = dis.readFloat();
+            float range = dis.readFloat();
+            add(new RangeReading(angle, range));
+        }
+    }
+}
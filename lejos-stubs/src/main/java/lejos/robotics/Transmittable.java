@@ -0,0 +1,22 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package lejos.robotics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Stand-in for the leJOS NXJ 0.9.1 interface of the same name
+ *
+ * @author Pedro I. López
+ *
+ */
+public interface Transmittable {
+    /** Writes the object to a stream */
+    public void dumpObject(DataOutputStream dos) throws IOException;
+
+    /** Reads the object back from a stream */
+    public void loadObject(DataInputStream dis) throws IOException;
+}
@@ -0,0 +1,136 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests of {@link mazerob.pc.MissionReader}
+ *
+ * @author Pedro I. López
+ *
+ */
+public class MissionReaderTest {
+    @Test
+    public void readsCommandsIgnoringCaseCommentsAndBlankLines()
+            throws IOException {
+        assertEquals(Arrays.asList("SCAN@1", "TRANSLATE 300.0@3",
+                "ROTATE -45.5@4", "ROTATE_RIGHT@5"),
+            read("scan\n"
+                + "\n"
+                + "  Translate 300   # forward\n"
+                + "ROTATE -45.5\n"
+                + "rotate_right\n"
+                + "# done\n"));
+    }
+
+    @Test
+    public void repeatsNestedBlocks() throws IOException {
+        assertEquals(Arrays.asList("SCAN@2", "ROTATE_RIGHT@4",
+                "ROTATE_RIGHT@4", "TRANSLATE_FORWARD@6", "SCAN@2",
+                "ROTATE_RIGHT@4", "ROTATE_RIGHT@4", "TRANSLATE_FORWARD@6",
+                "END@8"),
+            read("REPEAT 2\n"
+                + "    SCAN\n"
+                + "    REPEAT 2\n"
+                + "        ROTATE_RIGHT\n"
+                + "    ENDREPEAT\n"
+                + "    TRANSLATE_FORWARD\n"
+                + "ENDREPEAT\n"
+                + "END\n"));
+    }
+
+    @Test
+    public void skipsEmptyAndZeroTimesBlocks() throws IOException {
+        assertEquals(Arrays.asList("SCAN@6"),
+            read("REPEAT 0\n"
+                + "    TRANSLATE_FORWARD\n"
+                + "ENDREPEAT\n"
+                + "REPEAT 3\n"
+                + "ENDREPEAT\n"
+                + "SCAN\n"));
+    }
+
+    @Test
+    public void returnsCommandsBeforeAnError() throws IOException {
+        MissionReader reader = reader("SCAN\nJUMP\n");
+
+        assertEquals("SCAN", reader.next().toString());
+        assertError("2: unknown command JUMP", reader);
+    }
+
+    @Test
+    public void reportsStrayEndRepeat() {
+        assertError("2: ENDREPEAT without REPEAT", reader("SCAN\nENDREPEAT\n"));
+    }
+
+    @Test
+    public void reportsUnclosedBlockAtItsFirstLine() {
+        assertError("2: REPEAT without ENDREPEAT",
+            reader("SCAN\nREPEAT 2\n    SCAN\n"));
+    }
+
+    @Test
+    public void reportsArgumentCounts() {
+        assertError("1: TRANSLATE takes 1 argument", reader("TRANSLATE\n"));
+        assertError("1: ROTATE takes 1 argument", reader("ROTATE 90 45\n"));
+        assertError("1: SCAN takes 0 arguments", reader("SCAN 3\n"));
+        assertError("1: REPEAT takes 1 argument", reader("REPEAT\n"));
+        assertError("3: ENDREPEAT takes 0 arguments",
+            reader("REPEAT 2\nSCAN\nENDREPEAT 2\n"));
+    }
+
+    @Test
+    public void reportsBadNumbers() {
+        assertError("1: not a number: far", reader("TRANSLATE far\n"));
+        assertError("1: not a repetition count: -1", reader("REPEAT -1\n"));
+        assertError("1: not a repetition count: 1.5", reader("REPEAT 1.5\n"));
+    }
+
+    @Test
+    public void reportsErrorsInsideBlocksWithTheirLine() {
+        assertError("3: unknown command JUMP",
+            reader("REPEAT 2\n    SCAN\n    JUMP\nENDREPEAT\n"));
+    }
+
+    /** @return Reader of {@code script} */
+    private static MissionReader reader(String script) {
+        return new MissionReader(new StringReader(script));
+    }
+
+    /** @return Every command of {@code script} as {@code command@line} */
+    private static List<String> read(String script) throws IOException {
+        MissionReader reader = reader(script);
+        List<String> commands = new ArrayList<String>();
+        MissionCommand command;
+
+        while ((command = reader.next()) != null) {
+            commands.add(command + "@" + command.getLine());
+        }
+        assertNull(reader.next());
+        return commands;
+    }
+
+    /** Checks that the rest of {@code reader} fails with {@code message} */
+    private static void assertError(String message, MissionReader reader) {
+        try {
+            while (reader.next() != null) {
+                // read up to the error
+            }
+            fail("Expected error " + message);
+        }
+        catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lejos.robotics.RangeReadings;
+import mazerob.conn.CommandCode;
+import mazerob.conn.RemotelyControllable;
+import org.junit.Test;
+
+/**
+ * Tests of {@link mazerob.pc.MissionRunner} driving a {@link
+ * mazerob.pc.Robot} over in-memory streams
+ *
+ * <p>The scripts only use commands without arguments, so every command
+ * is one {@code int} on the link after the configuration.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class MissionRunnerTest {
+    /** Bytes of the configuration sent by {@link Robot#Robot}: five
+     * doubles and a boolean */
+    private static final int CONFIG_SIZE = 5 * 8 + 1;
+
+    /** Bytes of one scan reply: count, then angle and range per reading */
+    private static final int REPLY_SIZE =
+        1 + RemotelyControllable.SCANNING_ANGLES.length * 8;
+
+    /** Two scans, each followed by four translations */
+    private static final String TWO_SCANS = "SCAN\n"
+        + "REPEAT 4\n"
+        + "    TRANSLATE_FORWARD\n"
+        + "ENDREPEAT\n"
+        + "SCAN\n"
+        + "REPEAT 4\n"
+        + "    TRANSLATE_FORWARD\n"
+        + "ENDREPEAT\n";
+
+    /** Commands flowing to the NXT, as flushed by the robot */
+    private final ByteArrayOutputStream commands = new ByteArrayOutputStream();
+
+    /** Commands flushed when the NXT reply of each scan started being
+     * read */
+    private final List<Integer> sentAtReply = new ArrayList<Integer>();
+
+    /** Scans written to the sink, as {@code scan:line:range} of the first
+     * reading */
+    private final List<String> written = new ArrayList<String>();
+
+    @Test
+    public void keepsLookaheadCommandsInFlightCountingTheScan()
+            throws IOException {
+        assertEquals(2, run(TWO_SCANS, 2, 3).run(mission(TWO_SCANS)));
+        assertEquals(Arrays.asList(3, 8), sentAtReply);
+    }
+
+    @Test
+    public void waitsForEveryScanWithLookaheadOne() throws IOException {
+        run(TWO_SCANS, 2, 1).run(mission(TWO_SCANS));
+        assertEquals(Arrays.asList(1, 6), sentAtReply);
+    }
+
+    @Test
+    public void drainsPendingScansAtTheEnd() throws IOException {
+        run(TWO_SCANS, 2, 100).run(mission(TWO_SCANS));
+        assertEquals(Arrays.asList(10, 10), sentAtReply);
+    }
+
+    @Test
+    public void writesScansInOrderWithTheirLines() throws IOException {
+        run(TWO_SCANS, 2, 3).run(mission(TWO_SCANS));
+        assertEquals(Arrays.asList("0:1:0.0", "1:5:10.0"), written);
+    }
+
+    @Test
+    public void stopsAtEnd() throws IOException {
+        String script = "SCAN\nROTATE_RIGHT\nEND\nSCAN\n";
+        MissionRunner runner = run(script, 1, 8);
+
+        assertEquals(1, runner.run(mission(script)));
+        assertTrue(runner.isEnded());
+        assertEquals(Arrays.asList(CommandCode.SCAN.ordinal(),
+                CommandCode.ROTATE_RIGHT.ordinal(),
+                CommandCode.END.ordinal()),
+            sentCommands());
+    }
+
+    @Test
+    public void leavesTheRobotRunningWithoutEnd() throws IOException {
+        MissionRunner runner = run(TWO_SCANS, 2, 3);
+
+        runner.run(mission(TWO_SCANS));
+        assertFalse(runner.isEnded());
+        assertEquals(10, sentCommands().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLookaheadBelowOne() throws IOException {
+        run(TWO_SCANS, 0, 0);
+    }
+
+    /** @return Runner driving a robot whose NXT answers {@code scans}
+     * scans, the reading of scan {@code k} at {@code 10 k} cm */
+    private MissionRunner run(String script, int scans, int lookahead)
+            throws IOException {
+        ByteArrayOutputStream replies = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(replies);
+        for (int k = 0; k < scans; k++) {
+            RangeReadings readings = new RangeReadings(
+                RemotelyControllable.SCANNING_ANGLES.length);
+            for (int i = 0; i < readings.getNumReadings(); i++) {
+                readings.setRange(i, RemotelyControllable.SCANNING_ANGLES[i],
+                    10 * k);
+            }
+            readings.dumpObject(out);
+        }
+
+        Robot robot = new Robot(new Link(replies.toByteArray()), commands,
+            43.2, 139.0, false, 90.0, 100.0, 85.0);
+        return new MissionRunner(robot, new ScanSink() {
+            public void write(long scan, int line, RangeReadings readings) {
+                written.add(scan + ":" + line + ":" + readings.getRange(0));
+            }
+
+            public void close() {
+            }
+        }, lookahead);
+    }
+
+    /** @return Reader of {@code script} */
+    private static MissionReader mission(String script) {
+        return new MissionReader(new StringReader(script));
+    }
+
+    /** @return Command codes flushed to the NXT so far */
+    private List<Integer> sentCommands() {
+        ByteBuffer link = ByteBuffer.wrap(commands.toByteArray());
+        List<Integer> codes = new ArrayList<Integer>();
+
+        link.position(CONFIG_SIZE);
+        while (link.remaining() >= 4) {
+            codes.add(link.getInt());
+        }
+        return codes;
+    }
+
+    /** Replies of the NXT, noting how many commands had been flushed when
+     * each reply starts being read */
+    private class Link extends InputStream {
+        private final byte[] replies;
+        private int position;
+
+        Link(byte[] replies) {
+            this.replies = replies;
+        }
+
+        public int read() {
+            if (position >= replies.length) {
+                return -1;
+            }
+            if (position % REPLY_SIZE == 0) {
+                sentAtReply.add((commands.size() - CONFIG_SIZE) / 4);
+            }
+            return replies[position++] & 0xff;
+        }
+    }
+}
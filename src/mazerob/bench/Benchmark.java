@@ -0,0 +1,385 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import mazerob.pc.SpeculativePlanner;
+
+/** Solver throughput benchmark over a generated maze corpus.
+ *
+ * <p>Every combination of solver, maze kind, maze size and seed is one
+ * run: the maze is generated with {@link mazerob.bench.MazeGenerator}, a
+ * {@link mazerob.bench.SimulatedRobot} is placed in it and a fresh {@link
+ * mazerob.bench.Solver} drives it, to the goal or, in {@link
+ * mazerob.bench.RunMode#EXPLORE} mode, until it stops by itself.  Runs
+ * are spread over a thread pool and every run is measured on its own
+ * thread, so thread CPU time and allocated bytes belong to that run
+ * alone.  Work a solver hands to other threads runs on a helper pool
+ * created for the run, and the CPU time and allocations of its threads
+ * are added to those of the run.</p>
+ *
+ * <p>Peak heap is what the solver adds to the heap: before the run the
+ * collector is run until the used heap stops shrinking and the peaks of
+ * the heap memory pools are reset, and the sum of their peaks after the
+ * run is reported minus the heap still in use after that collection, so
+ * garbage and live data of earlier runs do not count.  It is only
+ * measured when running on one thread, since with more the pools are
+ * shared by concurrent runs, and the column is left empty.</p>
+ *
+ * <p>Results are written as CSV, one {@link mazerob.bench.RunResult} per
+ * row in a fixed order, so reports of two builds can be diffed.  Every row
+ * is written as soon as it and the rows before it are done, and a run that
+ * fails, even with an {@link java.lang.Error} such as running out of
+ * memory, reports it in its {@code error} column instead of stopping the
+ * benchmark.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class Benchmark {
+    /** Angle in degrees of a simulated quarter turn */
+    private static final double QUARTER_TURN = 90.0;
+
+    /** Commands allowed per maze cell before a run is aborted */
+    private static final long COMMANDS_PER_CELL = 64;
+
+    /** Size of the maze used to warm up the JIT before measuring */
+    private static final int WARMUP_SIZE = 20;
+
+    /** Warm up runs per solver */
+    private static final int WARMUP_RUNS = 50;
+
+    /** Most collections run before a run to empty the heap */
+    private static final int GC_ROUNDS = 4;
+
+    /** Allocation counter of the HotSpot thread bean, null if missing */
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS;
+
+    static {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        ALLOCATIONS = threads instanceof com.sun.management.ThreadMXBean
+            ? (com.sun.management.ThreadMXBean) threads : null;
+    }
+
+    /** Main benchmark entry point.
+     *
+     * <p>Command line positional arguments:</p>
+     *
+     * <ol>
+     * <li>{@code translationMagnitude}, length in mm of one cell</li>
+     * <li>{@code translationSpeed}, translation speed of the robot in mm
+     * per second</li>
+     * <li>{@code rotationSpeed}, rotation speed of the robot in degrees
+     * per second</li>
+     * <li>{@code mode}, {@link mazerob.bench.RunMode} name</li>
+     * <li>{@code solvers}, comma separated {@link mazerob.bench.SolverKind}
+     * names</li>
+     * <li>{@code kinds}, comma separated {@link mazerob.bench.MazeKind}
+     * names</li>
+     * <li>{@code sizes}, comma separated maze sides in cells, for example
+     * {@code 10,100,1000}</li>
+     * <li>{@code seeds}, number of seeds per kind and size, starting at
+     * {@code 0}</li>
+     * <li>{@code threads}, number of concurrent runs, {@code 0} for one per
+     * available processor</li>
+     * <li>{@code csvFile}, report path, {@code -} for stdout</li>
+     * </ol>
+     *
+     */
+    public static void main(String[] args) throws Exception {
+        double translationMagnitude, translationSpeed, rotationSpeed;
+        RunMode mode;
+        List<SolverKind> solvers = new ArrayList<SolverKind>();
+        List<MazeKind> kinds = new ArrayList<MazeKind>();
+        List<Integer> sizes = new ArrayList<Integer>();
+        int seeds, threads;
+        String csvFile;
+
+        assert args.length == 10;
+
+        translationMagnitude = Double.parseDouble(args[0]);
+        translationSpeed = Double.parseDouble(args[1]);
+        rotationSpeed = Double.parseDouble(args[2]);
+        mode = RunMode.valueOf(args[3].trim());
+        for (String name : args[4].split(",")) {
+            solvers.add(SolverKind.valueOf(name.trim()));
+        }
+        for (String name : args[5].split(",")) {
+            kinds.add(MazeKind.valueOf(name.trim()));
+        }
+        for (String size : args[6].split(",")) {
+            sizes.add(Integer.valueOf(size.trim()));
+        }
+        seeds = Integer.parseInt(args[7]);
+        threads = Integer.parseInt(args[8]);
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        csvFile = args[9];
+
+        warmUp(solvers, mode, translationMagnitude, translationSpeed,
+            rotationSpeed);
+
+        PrintWriter out = csvFile.equals("-")
+            ? new PrintWriter(System.out, true)
+            : new PrintWriter(new FileWriter(csvFile));
+        try {
+            out.println(RunResult.CSV_HEADER);
+            runAll(solvers, mode, kinds, sizes, seeds, threads,
+                translationMagnitude, translationSpeed, rotationSpeed, out);
+        }
+        finally {
+            out.flush();
+            if (out.checkError()) {
+                System.err.println("Failed writing " + csvFile);
+            }
+            if (!csvFile.equals("-")) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Runs every combination of the arguments over a thread pool, writing
+     * one CSV row per run to {@code out}, ordered by solver, kind, size and
+     * seed, as soon as the runs up to it are done
+     *
+     */
+    public static void runAll(List<SolverKind> solvers,
+                              final RunMode mode,
+                              List<MazeKind> kinds,
+                              List<Integer> sizes,
+                              int seeds,
+                              final int threads,
+                              final double translationMagnitude,
+                              final double translationSpeed,
+                              final double rotationSpeed,
+                              PrintWriter out)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<RunResult>> futures = new ArrayList<Future<RunResult>>();
+
+        try {
+            for (final SolverKind solver : solvers) {
+                for (final MazeKind kind : kinds) {
+                    for (final Integer size : sizes) {
+                        for (int seed = 0; seed < seeds; seed++) {
+                            final long runSeed = seed;
+                            futures.add(pool.submit(new Callable<RunResult>() {
+                                public RunResult call() {
+                                    return run(solver, mode, kind, size,
+                                        size, runSeed, threads,
+                                        translationMagnitude,
+                                        translationSpeed, rotationSpeed);
+                                }
+                            }));
+                        }
+                    }
+                }
+            }
+            for (Future<RunResult> future : futures) {
+                try {
+                    out.println(future.get().toCsv());
+                    out.flush();
+                }
+                catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Generates one maze and measures one solver on it, on the calling
+     * thread
+     *
+     * @return Measurements of the run
+     */
+    public static RunResult run(SolverKind solverKind, RunMode mode,
+                                MazeKind kind, int width, int height,
+                                long seed, int threads,
+                                double translationMagnitude,
+                                double translationSpeed,
+                                double rotationSpeed) {
+        RunResult result = new RunResult();
+        ThreadMXBean cpu = ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long start;
+
+        result.mode = mode;
+        result.kind = kind;
+        result.width = width;
+        result.height = height;
+        result.seed = seed;
+        result.threads = threads;
+
+        start = System.nanoTime();
+        Maze maze = MazeGenerator.generate(kind, width, height,
+            translationMagnitude, seed);
+        result.generationTime = System.nanoTime() - start;
+
+        SimulatedRobot robot = new SimulatedRobot(maze, translationMagnitude,
+            QUARTER_TURN, COMMANDS_PER_CELL * maze.getCellCount());
+        final List<Thread> helpers =
+            Collections.synchronizedList(new ArrayList<Thread>());
+        ExecutorService helperPool = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "benchmark-helper");
+                    thread.setDaemon(true);
+                    helpers.add(thread);
+                    return thread;
+                }
+            });
+        Solver solver = solverKind.create(translationMagnitude,
+            translationSpeed, QUARTER_TURN, rotationSpeed, helperPool);
+        result.solver = solver.getName();
+
+        long heapBase = threads == 1 ? resetPeakHeap() : -1;
+        long allocatedStart = allocatedBytes(threadId);
+        long cpuStart = cpu.getCurrentThreadCpuTime();
+        start = System.nanoTime();
+        try {
+            solver.solve(robot, mode.goalOf(robot));
+            robot.end();
+        }
+        catch (Throwable e) {
+            // an Error such as OutOfMemoryError ends this run only; the
+            // solver is unreachable once run returns
+            result.error = e.toString();
+        }
+        result.wallTime = System.nanoTime() - start;
+        long cpuEnd = cpu.getCurrentThreadCpuTime();
+        long allocatedEnd = allocatedBytes(threadId);
+
+        // helper threads were created during the run, their totals so far
+        // are what the run used; they stay alive until the pool is shut
+        // down, so the totals can still be read
+        long helperAllocated = 0;
+        synchronized (helpers) {
+            for (Thread helper : helpers) {
+                long cpuTime = cpu.getThreadCpuTime(helper.getId());
+                if (cpuTime > 0) {
+                    result.helperCpuTime += cpuTime;
+                }
+                long allocated = allocatedBytes(helper.getId());
+                if (allocated > 0) {
+                    helperAllocated += allocated;
+                }
+            }
+        }
+        helperPool.shutdownNow();
+
+        result.planningCpuTime = cpuEnd - cpuStart
+            - robot.getSimulationCpuTime() + result.helperCpuTime;
+        result.allocatedBytes = allocatedStart < 0 ? -1
+            : allocatedEnd - allocatedStart + helperAllocated;
+        result.peakHeap = heapBase < 0 ? -1 : peakHeap() - heapBase;
+
+        result.cells = maze.getCellCount();
+        result.seenCells = robot.getSeenCells();
+        result.solved = mode == RunMode.SOLVE ? robot.isGoalReached()
+            : result.error.length() == 0 && result.seenCells == result.cells;
+        result.translations = robot.getTranslations();
+        result.rotations = robot.getRotations();
+        result.scans = robot.getScans();
+        result.collisions = robot.getCollisions();
+        result.distance = robot.getDistance();
+        result.simulationCpuTime = robot.getSimulationCpuTime();
+        if (solver instanceof DepthFirstExplorer) {
+            SpeculativePlanner<Integer> speculation =
+                ((DepthFirstExplorer) solver).getSpeculation();
+            if (speculation != null) {
+                result.plansReady = speculation.getReadyCount();
+                result.plansWaited = speculation.getWaitedCount();
+            }
+        }
+        return result;
+    }
+
+    /** Runs every solver on small mazes so the JIT has compiled the hot
+     * paths before anything is measured */
+    private static void warmUp(List<SolverKind> solvers, RunMode mode,
+                               double translationMagnitude,
+                               double translationSpeed,
+                               double rotationSpeed) {
+        for (SolverKind solver : solvers) {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                run(solver, mode,
+                    MazeKind.values()[i % MazeKind.values().length],
+                    WARMUP_SIZE, WARMUP_SIZE, -1 - i, 1,
+                    translationMagnitude, translationSpeed, rotationSpeed);
+            }
+        }
+    }
+
+    /** @return Bytes allocated so far by a thread, {@code -1} if the JVM
+     * cannot tell */
+    private static long allocatedBytes(long threadId) {
+        if (ALLOCATIONS == null
+                || !ALLOCATIONS.isThreadAllocatedMemorySupported()
+                || !ALLOCATIONS.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return ALLOCATIONS.getThreadAllocatedBytes(threadId);
+    }
+
+    /** Collects garbage until the used heap stops shrinking, then resets
+     * the peak usage of every heap memory pool
+     *
+     * @return Sum in bytes of the usage of the heap memory pools after the
+     * collection */
+    private static long resetPeakHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        long base = 0;
+
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                base += pool.getUsage().getUsed();
+            }
+        }
+        return base;
+    }
+
+    /** @return Sum in bytes of the peak usage of the heap memory pools */
+    private static long peakHeap() {
+        long peak = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
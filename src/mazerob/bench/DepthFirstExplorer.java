@@ -0,0 +1,178 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import lejos.robotics.RangeReadings;
+import mazerob.conn.RemotelyControllable;
+import mazerob.pc.Heading;
+import mazerob.pc.SpeculativePlanner;
+
+/**
+ * Depth first explorer with backtracking (Trémaux style)
+ *
+ * <p>Dead reckons its cell from the commands it sends and remembers every
+ * visited cell, so it never enters a cell twice except when backtracking.
+ * The arena size is unknown to it, so cells are kept in a hash set keyed
+ * by coordinates relative to the start.</p>
+ *
+ * <p>With speculation on, the choice of the next cell is computed for
+ * every outcome of the next scan by a {@link mazerob.pc.SpeculativePlanner}
+ * while the robot moves, and only looked up once the scan arrives.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class DepthFirstExplorer extends GridSolver {
+    /** Readings tried for unvisited neighbours, in order of preference */
+    private static final int[] LOOK = {Heading.RIGHT_READING,
+        Heading.AHEAD_READING, Heading.LEFT_READING};
+
+    /** Quarter turns clockwise to face each reading of {@link #LOOK} */
+    private static final int[] TURN = {1, 0, 3};
+
+    /** Readings the choice of the next cell depends on */
+    private static final int LOOK_MASK =
+        (1 << Heading.RIGHT_READING) | (1 << Heading.AHEAD_READING)
+        | (1 << Heading.LEFT_READING);
+
+    /** Cells visited so far */
+    private final Set<Long> visited = new HashSet<Long>();
+
+    /** Direction taken to enter each cell of the current path */
+    private int[] path = new int[64];
+
+    /** Current cell, dead reckoned */
+    private int x, y;
+
+    /** Plans the next cell during motion, null if speculation is off */
+    private final SpeculativePlanner<Integer> speculation;
+
+    /** Choice of the next cell as a function of the scan outcome */
+    private final SpeculativePlanner.Planner<Integer> chooser =
+        new SpeculativePlanner.Planner<Integer>() {
+            public Integer plan(int outcome) {
+                return Integer.valueOf(choose(outcome));
+            }
+        };
+
+    /**
+     * @param translationMagnitude Distance in mm of one cell
+     *
+     */
+    public DepthFirstExplorer(double translationMagnitude) {
+        this(translationMagnitude, null);
+    }
+
+    /**
+     * @param translationMagnitude Distance in mm of one cell
+     * @param executor Pool planning the next cell while moving, null to
+     * plan on the calling thread once the scan arrives
+     *
+     */
+    public DepthFirstExplorer(double translationMagnitude,
+                              ExecutorService executor) {
+        super(translationMagnitude);
+        speculation = executor == null ? null
+            : new SpeculativePlanner<Integer>(executor, translationMagnitude);
+    }
+
+    /** @return {@code "depth-first"}, or {@code "depth-first-speculative"}
+     * with speculation on */
+    public String getName() {
+        return speculation == null ? "depth-first" : "depth-first-speculative";
+    }
+
+    /**
+     * @see mazerob.bench.Solver#solve
+     */
+    public void solve(RemotelyControllable robot, GoalSensor goal)
+            throws IOException {
+        int depth = 0;
+        boolean speculated = false;
+
+        visited.add(key(x, y));
+        try {
+            while (!goal.isGoalReached()) {
+                RangeReadings readings = robot.scan();
+                int next = speculated ? speculation.await(readings)
+                    : choose(SpeculativePlanner.outcomeOf(readings,
+                        openThreshold));
+
+                if (next < 0) {
+                    if (depth == 0) {
+                        return;
+                    }
+                    next = Heading.opposite(path[--depth]);
+                }
+                else {
+                    if (depth == path.length) {
+                        int[] grown = new int[path.length * 2];
+                        System.arraycopy(path, 0, grown, 0, depth);
+                        path = grown;
+                    }
+                    path[depth++] = next;
+                }
+
+                turnTo(robot, next);
+                robot.translateForward();
+                x += Heading.dx(next);
+                y += Heading.dy(next);
+                visited.add(key(x, y));
+                if (speculation != null) {
+                    speculation.speculate(chooser, LOOK_MASK);
+                    speculated = true;
+                }
+            }
+        }
+        catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        finally {
+            if (speculation != null) {
+                speculation.cancel();
+            }
+        }
+    }
+
+    /** Chooses the unvisited open neighbour to enter next; only reads
+     * state, which {@link #solve} leaves alone from {@code speculate}
+     * until {@code await} has returned, so it can run while the robot
+     * moves
+     *
+     * @param outcome Bit mask of open readings of the scan at the current
+     * cell
+     *
+     * @return Direction of the neighbour, {@code -1} to backtrack */
+    private int choose(int outcome) {
+        for (int i = 0; i < LOOK.length; i++) {
+            int candidate = Heading.turn(direction, TURN[i]);
+            if ((outcome & (1 << LOOK[i])) != 0 && !visited.contains(
+                    key(x + Heading.dx(candidate),
+                        y + Heading.dy(candidate)))) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /** @return Planner of the next cell, null if speculation is off */
+    SpeculativePlanner<Integer> getSpeculation() {
+        return speculation;
+    }
+
+    /** @return Hash key of cell {@code (x, y)} */
+    private static Long key(int x, int y) {
+        return Long.valueOf(((long) x << 32) | (y & 0xffffffffL));
+    }
+}
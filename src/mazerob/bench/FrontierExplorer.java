@@ -0,0 +1,134 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+import mazerob.conn.CommandCode;
+import mazerob.conn.RemotelyControllable;
+import mazerob.pc.FrontierPlanner;
+import mazerob.pc.GridMap;
+import mazerob.pc.Heading;
+
+/**
+ * Explorer that scans only where a {@link mazerob.pc.FrontierPlanner}
+ * expects to learn the most per second
+ *
+ * <p>Builds a {@link mazerob.pc.GridMap} from full range readings, so a
+ * scan into an open area maps many cells at once, and drives through
+ * known passages without scanning until it reaches the chosen pose.  It
+ * stops at the goal or once no frontier is reachable.</p>
+ *
+ * <p>Costs use the speeds given to {@link mazerob.bench.Benchmark}: the
+ * simulator has no clock, they only weigh rotation against
+ * translation.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class FrontierExplorer implements Solver {
+    /** Duration of a scan in seconds used for costs */
+    static final double SCAN_TIME = 2.0;
+
+    /** Distance in mm of one cell */
+    private final double translationMagnitude;
+
+    /** Translation speed in mm per second, angle of a quarter turn in
+     * degrees and rotation speed in degrees per second used for costs */
+    private final double translationSpeed, rotationMagnitude, rotationSpeed;
+
+    /** Pool scoring large batches of candidates */
+    private final ExecutorService executor;
+
+    /** Dead reckoned cell and heading */
+    private int x, y, heading;
+
+    /**
+     * @param translationMagnitude Distance in mm of one cell
+     * @param translationSpeed Translation speed in mm per second
+     * @param rotationMagnitude Angle in degrees of a quarter turn
+     * @param rotationSpeed Rotation speed in degrees per second
+     * @param executor Pool scoring large batches of candidates, see
+     * {@link mazerob.pc.FrontierPlanner}
+     *
+     */
+    public FrontierExplorer(double translationMagnitude,
+                            double translationSpeed,
+                            double rotationMagnitude, double rotationSpeed,
+                            ExecutorService executor) {
+        this.translationMagnitude = translationMagnitude;
+        this.translationSpeed = translationSpeed;
+        this.rotationMagnitude = rotationMagnitude;
+        this.rotationSpeed = rotationSpeed;
+        this.executor = executor;
+    }
+
+    /** @return {@code "frontier"} */
+    public String getName() {
+        return "frontier";
+    }
+
+    /**
+     * @see mazerob.bench.Solver#solve
+     */
+    public void solve(RemotelyControllable robot, GoalSensor goal)
+            throws IOException {
+        GridMap map = new GridMap(translationMagnitude,
+            Heading.toMillimetres(Heading.MAX_RANGE));
+        FrontierPlanner planner = new FrontierPlanner(executor,
+            Runtime.getRuntime().availableProcessors(), map,
+            translationMagnitude, translationSpeed, rotationMagnitude,
+            rotationSpeed, SCAN_TIME);
+
+        heading = Heading.EAST;
+        map.integrate(x, y, heading, robot.scan());
+        try {
+            while (!goal.isGoalReached()) {
+                CommandCode[] moves = planner.plan(x, y, heading);
+                if (moves == null) {
+                    return;
+                }
+                for (CommandCode move : moves) {
+                    drive(robot, move);
+                    if (goal.isGoalReached()) {
+                        return;
+                    }
+                }
+                map.integrate(x, y, heading, robot.scan());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /** Sends one move of a plan and dead reckons it */
+    private void drive(RemotelyControllable robot, CommandCode move)
+            throws IOException {
+        switch (move) {
+            case TRANSLATE_FORWARD:
+                robot.translateForward();
+                x += Heading.dx(heading);
+                y += Heading.dy(heading);
+                break;
+            case TRANSLATE_BACKWARD:
+                robot.translateBackward();
+                x -= Heading.dx(heading);
+                y -= Heading.dy(heading);
+                break;
+            case ROTATE_RIGHT:
+                robot.rotateRight();
+                heading = Heading.turn(heading, 1);
+                break;
+            case ROTATE_LEFT:
+                robot.rotateLeft();
+                heading = Heading.turn(heading, -1);
+                break;
+            default:
+                throw new IllegalArgumentException("Not a move: " + move);
+        }
+    }
+}
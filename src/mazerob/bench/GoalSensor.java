@@ -0,0 +1,18 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+/**
+ * Tells a {@link mazerob.bench.Solver} whether the maze has been solved
+ *
+ * <p>A real robot has no such sensor; solvers only use it to know when to
+ * stop, never to plan.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public interface GoalSensor {
+    /** @return True once the robot has reached the goal */
+    public boolean isGoalReached();
+}
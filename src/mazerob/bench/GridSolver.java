@@ -0,0 +1,73 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.io.IOException;
+import lejos.robotics.RangeReadings;
+import mazerob.conn.RemotelyControllable;
+import mazerob.pc.Heading;
+
+/**
+ * Base of solvers that move one cell at a time with the fixed size
+ * commands of {@link mazerob.conn.RemotelyControllable}
+ *
+ * <p>Assumes {@link mazerob.conn.RemotelyControllable#rotateRight} turns a
+ * quarter clockwise and {@link
+ * mazerob.conn.RemotelyControllable#translateForward} advances one cell.
+ * Directions are the headings of {@link mazerob.pc.Heading}, and readings
+ * are looked up with its {@code RIGHT_READING}, {@code AHEAD_READING} and
+ * {@code LEFT_READING} indexes.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+abstract class GridSolver implements Solver {
+    /** Readings farther than this, in mm, are open passages */
+    final double openThreshold;
+
+    /** Current direction, dead reckoned from the commands sent */
+    int direction;
+
+    /**
+     * @param translationMagnitude Distance in mm of {@link
+     * mazerob.conn.RemotelyControllable#translateForward}, one cell
+     *
+     */
+    GridSolver(double translationMagnitude) {
+        openThreshold = translationMagnitude;
+        direction = Heading.WEST;
+    }
+
+    /** @return True if reading {@code index} shows an open passage */
+    boolean isOpen(RangeReadings readings, int index) {
+        return Heading.isOpen(readings.getRange(index), openThreshold);
+    }
+
+    /** Rotates the robot until it faces direction {@code target} */
+    void turnTo(RemotelyControllable robot, int target) throws IOException {
+        turn(robot, direction, target);
+        direction = target;
+    }
+
+    /** Rotates a robot facing heading {@code from} until it faces heading
+     * {@code to}, with the fewest quarter turns */
+    static void turn(RemotelyControllable robot, int from, int to)
+            throws IOException {
+        switch (Heading.quartersBetween(from, to)) {
+            case 1:
+                robot.rotateRight();
+                break;
+            case 2:
+                robot.rotateRight();
+                robot.rotateRight();
+                break;
+            case 3:
+                robot.rotateLeft();
+                break;
+            default:
+                break;
+        }
+    }
+
+}
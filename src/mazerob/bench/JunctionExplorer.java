@@ -0,0 +1,120 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.io.IOException;
+import lejos.robotics.RangeReadings;
+import mazerob.conn.RemotelyControllable;
+import mazerob.pc.Heading;
+import mazerob.pc.JunctionGraph;
+import mazerob.pc.JunctionMapper;
+
+/**
+ * Explorer that plans on a {@link mazerob.pc.JunctionGraph}
+ *
+ * <p>Drives through a {@link mazerob.pc.JunctionMapper}, scanning both
+ * ways at the start cell so no exit of it is missed.  At a junction
+ * with unexplored exits it takes one of them, preferring right, ahead and
+ * left in that order; otherwise it drives the shortest known route to the
+ * closest junction that still has unexplored exits.  Corridors are
+ * followed cell by cell, scanning at every cell.  Only junctions are
+ * stored, so memory grows with their number rather than with the number
+ * of cells visited, unlike {@link mazerob.bench.DepthFirstExplorer}.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class JunctionExplorer implements Solver {
+    /** Order in which unexplored exits are taken, in quarter turns
+     * clockwise from the current heading */
+    private static final int[] PREFERENCE = {1, 0, 3, 2};
+
+    /** Distance in mm of one cell */
+    private final double translationMagnitude;
+
+    /** Mapper wrapping the robot of the current run */
+    private JunctionMapper mapper;
+
+    /**
+     * @param translationMagnitude Distance in mm of one cell
+     *
+     */
+    public JunctionExplorer(double translationMagnitude) {
+        this.translationMagnitude = translationMagnitude;
+    }
+
+    /** @return {@code "junction-graph"} */
+    public String getName() {
+        return "junction-graph";
+    }
+
+    /**
+     * @see mazerob.bench.Solver#solve
+     */
+    public void solve(RemotelyControllable robot, GoalSensor goal)
+            throws IOException {
+        mapper = new JunctionMapper(robot, translationMagnitude);
+        JunctionGraph graph = mapper.getGraph();
+
+        mapper.scan();
+        mapper.rotateRight();
+        mapper.rotateRight();
+        mapper.scan();
+        int node = mapper.getNode();
+        while (node >= 0 && !goal.isGoalReached()) {
+            int unexplored = graph.getUnexploredExits(node);
+
+            if (unexplored != 0) {
+                turnTo(pick(unexplored));
+                node = followCorridor(goal);
+                continue;
+            }
+
+            int[] path = graph.pathToUnexplored(node);
+            if (path == null) {
+                return;
+            }
+            for (int i = 1; i < path.length && node == path[i - 1]; i++) {
+                turnTo(graph.headingTowards(path[i - 1], path[i]));
+                node = followCorridor(goal);
+            }
+        }
+    }
+
+    /** @return Heading of {@code unexplored} to take first */
+    private int pick(int unexplored) {
+        for (int quarters : PREFERENCE) {
+            int heading = Heading.turn(mapper.getHeading(), quarters);
+            if ((unexplored & (1 << heading)) != 0) {
+                return heading;
+            }
+        }
+        throw new IllegalArgumentException("No exit in " + unexplored);
+    }
+
+    /** Drives along the corridor ahead up to the next node
+     *
+     * @return Node reached, {@code -1} if the goal was reached first */
+    private int followCorridor(GoalSensor goal) throws IOException {
+        while (true) {
+            mapper.translateForward();
+            if (goal.isGoalReached()) {
+                return -1;
+            }
+
+            RangeReadings readings = mapper.scan();
+            int node = mapper.getNode();
+            if (node >= 0) {
+                return node;
+            }
+            turnTo(Integer.numberOfTrailingZeros(Heading.openings(readings,
+                mapper.getHeading(), translationMagnitude)));
+        }
+    }
+
+    /** Rotates the robot until it faces {@code target} */
+    private void turnTo(int target) throws IOException {
+        GridSolver.turn(mapper, mapper.getHeading(), target);
+    }
+}
@@ -0,0 +1,154 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.util.Arrays;
+
+/**
+ * Rectangular grid maze of square cells
+ *
+ * <p>Cell {@code (0, 0)} is the north-west corner, {@code x} grows to the
+ * east and {@code y} grows to the south.  Walls are kept as one byte of
+ * direction flags per cell; a wall between two cells is stored in both of
+ * them.  The outer border is always walled.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class Maze {
+    /** Flag of the wall at the north side of a cell */
+    public static final int NORTH = 1;
+
+    /** Flag of the wall at the east side of a cell */
+    public static final int EAST = 2;
+
+    /** Flag of the wall at the south side of a cell */
+    public static final int SOUTH = 4;
+
+    /** Flag of the wall at the west side of a cell */
+    public static final int WEST = 8;
+
+    /** All wall flags */
+    static final int ALL_WALLS = NORTH | EAST | SOUTH | WEST;
+
+    /** Number of cells along the x axis */
+    private final int width;
+
+    /** Number of cells along the y axis */
+    private final int height;
+
+    /** Length in mm of the side of a cell */
+    private final double cellSize;
+
+    /** Wall flags of every cell, indexed by {@code y * width + x} */
+    private final byte[] walls;
+
+    /**
+     * Creates a maze where every cell is closed by four walls
+     *
+     * @param width Number of cells along the x axis
+     * @param height Number of cells along the y axis
+     * @param cellSize Length in mm of the side of a cell
+     *
+     */
+    public Maze(int width, int height, double cellSize) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Invalid maze size " +
+                width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        walls = new byte[width * height];
+        Arrays.fill(walls, (byte) ALL_WALLS);
+    }
+
+    /** @return Number of cells along the x axis */
+    public int getWidth() {
+        return width;
+    }
+
+    /** @return Number of cells along the y axis */
+    public int getHeight() {
+        return height;
+    }
+
+    /** @return Length in mm of the side of a cell */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /** @return Number of cells in the maze */
+    public int getCellCount() {
+        return walls.length;
+    }
+
+    /**
+     * @return True if cell {@code (x, y)} is inside the maze
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * @param x Cell column
+     * @param y Cell row
+     * @param direction One of {@link Maze#NORTH}, {@link Maze#EAST},
+     * {@link Maze#SOUTH} or {@link Maze#WEST}
+     *
+     * @return True if there is a wall at that side of the cell
+     */
+    public boolean hasWall(int x, int y, int direction) {
+        return (walls[y * width + x] & direction) != 0;
+    }
+
+    /**
+     * @return Wall flags of cell {@code (x, y)}
+     */
+    public int getWalls(int x, int y) {
+        return walls[y * width + x];
+    }
+
+    /**
+     * Removes the wall at one side of a cell and the matching wall of the
+     * neighbouring cell.  Walls of the outer border are never removed.
+     *
+     * @param x Cell column
+     * @param y Cell row
+     * @param direction Side of the cell to open
+     *
+     * @return True if the wall was removed
+     */
+    public boolean removeWall(int x, int y, int direction) {
+        int nx = x + dx(direction);
+        int ny = y + dy(direction);
+
+        if (!contains(x, y) || !contains(nx, ny)) {
+            return false;
+        }
+        walls[y * width + x] &= ~direction;
+        walls[ny * width + nx] &= ~opposite(direction);
+        return true;
+    }
+
+    /** @return Column offset of a step in {@code direction} */
+    public static int dx(int direction) {
+        return direction == EAST ? 1 : direction == WEST ? -1 : 0;
+    }
+
+    /** @return Row offset of a step in {@code direction} */
+    public static int dy(int direction) {
+        return direction == SOUTH ? 1 : direction == NORTH ? -1 : 0;
+    }
+
+    /** @return The direction opposite to {@code direction} */
+    public static int opposite(int direction) {
+        switch (direction) {
+            case NORTH: return SOUTH;
+            case EAST: return WEST;
+            case SOUTH: return NORTH;
+            default: return EAST;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Seeded maze generator
+ *
+ * <p>The same kind, size and seed always produce the same {@link
+ * mazerob.bench.Maze}, so corpora can be regenerated instead of stored.
+ * Every kind starts from a perfect maze carved with an iterative
+ * recursive backtracker, which keeps the generator usable at 1000x1000
+ * cells and beyond without deep call stacks.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class MazeGenerator {
+    /** Directions in the order they are tried before shuffling */
+    private static final int[] DIRECTIONS = {
+        Maze.NORTH, Maze.EAST, Maze.SOUTH, Maze.WEST
+    };
+
+    /** Cells per carved room in {@link MazeKind#OPEN_ROOM} mazes */
+    private static final int CELLS_PER_ROOM = 150;
+
+    private MazeGenerator() {
+    }
+
+    /**
+     * Generates a maze
+     *
+     * @param kind Family of the maze
+     * @param width Number of cells along the x axis
+     * @param height Number of cells along the y axis
+     * @param cellSize Length in mm of the side of a cell
+     * @param seed Seed of the pseudorandom generator
+     *
+     * @return The generated maze
+     */
+    public static Maze generate(MazeKind kind, int width, int height,
+                                double cellSize, long seed) {
+        Random random = new Random(seed);
+        Maze maze = new Maze(width, height, cellSize);
+
+        carvePerfect(maze, random);
+        switch (kind) {
+            case BRAIDED:
+                braid(maze, random);
+                break;
+            case OPEN_ROOM:
+                carveRooms(maze, random);
+                break;
+            case PERFECT:
+            default:
+                break;
+        }
+        return maze;
+    }
+
+    /** Carves a spanning tree of the grid starting at cell (0, 0) */
+    private static void carvePerfect(Maze maze, Random random) {
+        int width = maze.getWidth();
+        int[] stack = new int[maze.getCellCount()];
+        int[] candidates = new int[DIRECTIONS.length];
+        BitSet visited = new BitSet(maze.getCellCount());
+        int top = 0;
+
+        stack[top++] = 0;
+        visited.set(0);
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int x = cell % width, y = cell / width;
+            int count = 0;
+
+            for (int direction : DIRECTIONS) {
+                int nx = x + Maze.dx(direction), ny = y + Maze.dy(direction);
+                if (maze.contains(nx, ny) && !visited.get(ny * width + nx)) {
+                    candidates[count++] = direction;
+                }
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+
+            int direction = candidates[random.nextInt(count)];
+            int nx = x + Maze.dx(direction), ny = y + Maze.dy(direction);
+            maze.removeWall(x, y, direction);
+            visited.set(ny * width + nx);
+            stack[top++] = ny * width + nx;
+        }
+    }
+
+    /** Opens one extra wall in every dead end, preferring to join two
+     * dead ends at once */
+    private static void braid(Maze maze, Random random) {
+        int[] candidates = new int[DIRECTIONS.length];
+
+        for (int y = 0; y < maze.getHeight(); y++) {
+            for (int x = 0; x < maze.getWidth(); x++) {
+                if (!isDeadEnd(maze, x, y)) {
+                    continue;
+                }
+
+                int count = 0;
+                int preferred = 0;
+                for (int direction : DIRECTIONS) {
+                    int nx = x + Maze.dx(direction);
+                    int ny = y + Maze.dy(direction);
+                    if (maze.contains(nx, ny)
+                            && maze.hasWall(x, y, direction)) {
+                        candidates[count++] = direction;
+                        if (preferred == 0 && isDeadEnd(maze, nx, ny)) {
+                            preferred = direction;
+                        }
+                    }
+                }
+                if (preferred != 0) {
+                    maze.removeWall(x, y, preferred);
+                }
+                else if (count > 0) {
+                    maze.removeWall(x, y, candidates[random.nextInt(count)]);
+                }
+            }
+        }
+    }
+
+    /** Removes every interior wall of randomly placed rectangles */
+    private static void carveRooms(Maze maze, Random random) {
+        int width = maze.getWidth(), height = maze.getHeight();
+        int rooms = Math.max(1, maze.getCellCount() / CELLS_PER_ROOM);
+        int maxSide = Math.max(2, Math.min(8, Math.min(width, height) / 3));
+
+        for (int i = 0; i < rooms; i++) {
+            int roomWidth = Math.min(width, 2 + random.nextInt(maxSide - 1));
+            int roomHeight = Math.min(height, 2 + random.nextInt(maxSide - 1));
+            int x0 = random.nextInt(width - roomWidth + 1);
+            int y0 = random.nextInt(height - roomHeight + 1);
+
+            for (int y = y0; y < y0 + roomHeight; y++) {
+                for (int x = x0; x < x0 + roomWidth; x++) {
+                    if (x + 1 < x0 + roomWidth) {
+                        maze.removeWall(x, y, Maze.EAST);
+                    }
+                    if (y + 1 < y0 + roomHeight) {
+                        maze.removeWall(x, y, Maze.SOUTH);
+                    }
+                }
+            }
+        }
+    }
+
+    /** @return True if cell {@code (x, y)} has exactly one open side */
+    private static boolean isDeadEnd(Maze maze, int x, int y) {
+        return Integer.bitCount(maze.getWalls(x, y)) == 3;
+    }
+}
@@ -0,0 +1,21 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+/** Families of mazes produced by {@link mazerob.bench.MazeGenerator}.
+ *
+ * @author Pedro I. López
+ *
+ */
+public enum MazeKind {
+
+    /** Maze with exactly one path between any two cells (no loops). */
+    PERFECT,
+
+    /** Perfect maze with its dead ends removed, so it has loops. */
+    BRAIDED,
+
+    /** Perfect maze with rectangular open rooms carved into it. */
+    OPEN_ROOM
+}
@@ -0,0 +1,40 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+/** What a {@link mazerob.bench.Benchmark} run asks the solver to do, by
+ * command line name.
+ *
+ * @author Pedro I. López
+ *
+ */
+public enum RunMode {
+
+    /** Drive until the goal cell is reached */
+    SOLVE {
+        public GoalSensor goalOf(SimulatedRobot robot) {
+            return robot;
+        }
+    },
+
+    /** Drive until the solver has explored everything it can reach and
+     * stops by itself: the goal is never reported, so distance and scans
+     * are those needed to complete the map */
+    EXPLORE {
+        public GoalSensor goalOf(SimulatedRobot robot) {
+            return new GoalSensor() {
+                public boolean isGoalReached() {
+                    return false;
+                }
+            };
+        }
+    };
+
+    /**
+     * @param robot Robot of the run
+     *
+     * @return Goal sensor given to the solver
+     */
+    public abstract GoalSensor goalOf(SimulatedRobot robot);
+}
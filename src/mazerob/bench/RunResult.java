@@ -0,0 +1,104 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.util.Locale;
+
+/**
+ * Measurements of one solver run over one maze, one CSV row of the
+ * {@link mazerob.bench.Benchmark} report
+ *
+ * @author Pedro I. López
+ *
+ */
+public class RunResult {
+    /** Header row matching {@link #toCsv} */
+    public static final String CSV_HEADER = "solver,mode,kind,width,height,"
+        + "seed,threads,solved,cells,seen_cells,translations,rotations,"
+        + "scans,collisions,distance_mm,generation_ms,wall_ms,"
+        + "planning_cpu_ms,helper_cpu_ms,simulation_cpu_ms,allocated_bytes,"
+        + "allocation_mb_per_s,peak_heap_bytes,plans_ready,plans_waited,"
+        + "error";
+
+    /** Name of the solver, see {@link mazerob.bench.Solver#getName} */
+    String solver;
+
+    /** What the solver was asked to do */
+    RunMode mode;
+
+    /** Maze family, size and seed */
+    MazeKind kind;
+    int width, height;
+    long seed;
+
+    /** Number of runs executed concurrently */
+    int threads;
+
+    /** True if the goal was reached, or in {@link RunMode#EXPLORE} mode
+     * if the solver stopped by itself after every cell was seen */
+    boolean solved;
+
+    /** Cells of the maze, and cells the robot entered or saw, see {@link
+     * mazerob.bench.SimulatedRobot#getSeenCells} */
+    int cells, seenCells;
+
+    /** Commands received by the {@link mazerob.bench.SimulatedRobot} */
+    long translations, rotations, scans, collisions;
+
+    /** Total distance driven in mm */
+    double distance;
+
+    /** Times in ns: maze generation, solver wall clock, CPU of the run
+     * and its helper threads minus simulation, CPU of the helper threads
+     * alone, and simulation CPU */
+    long generationTime, wallTime, planningCpuTime, helperCpuTime,
+        simulationCpuTime;
+
+    /** Bytes allocated by the run and its helper threads, or {@code -1}
+     * if unsupported */
+    long allocatedBytes;
+
+    /** Peak heap usage in bytes over the run above the heap in use before
+     * it, {@code -1} if not measured, see {@link mazerob.bench.Benchmark} */
+    long peakHeap;
+
+    /** Speculated plans that were finished, or had to be waited for, when
+     * the scan arrived, {@code -1} if the solver does not speculate, see
+     * {@link mazerob.pc.SpeculativePlanner#getReadyCount} */
+    long plansReady = -1, plansWaited = -1;
+
+    /** Exception that stopped the run, if any */
+    String error = "";
+
+    /** @return Allocated MB per second of wall time, or {@code -1} if
+     * allocations could not be measured */
+    public double getAllocationRate() {
+        if (allocatedBytes < 0 || wallTime <= 0) {
+            return -1;
+        }
+        return allocatedBytes / 1e6 / (wallTime / 1e9);
+    }
+
+    /** @return True if the solver reached the goal, or explored the
+     * whole maze in {@link RunMode#EXPLORE} mode */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /** @return This result as one CSV row, without line terminator */
+    public String toCsv() {
+        return String.format(Locale.ROOT,
+            "%s,%s,%s,%d,%d,%d,%d,%b,%d,%d,%d,%d,%d,%d,%.1f,%.3f,%.3f,"
+            + "%.3f,%.3f,%.3f,%d,%.3f,%s,%s,%s,%s",
+            solver, mode, kind, width, height, seed, threads, solved,
+            cells, seenCells, translations, rotations, scans, collisions,
+            distance, generationTime / 1e6, wallTime / 1e6,
+            planningCpuTime / 1e6, helperCpuTime / 1e6,
+            simulationCpuTime / 1e6, allocatedBytes, getAllocationRate(),
+            peakHeap < 0 ? "" : Long.toString(peakHeap),
+            plansReady < 0 ? "" : Long.toString(plansReady),
+            plansWaited < 0 ? "" : Long.toString(plansWaited),
+            error.replace(',', ';'));
+    }
+}
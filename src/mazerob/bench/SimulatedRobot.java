@@ -0,0 +1,375 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import lejos.robotics.RangeReadings;
+import mazerob.conn.RemotelyControllable;
+import mazerob.pc.Heading;
+
+/**
+ * Simulated maze solving robot driving inside a {@link mazerob.bench.Maze}
+ *
+ * <p>Stands in for {@link mazerob.pc.Robot} so solvers can be run without
+ * an NXT.  The robot starts at the center of cell {@code (0, 0)} facing
+ * west, against the outer wall; the goal is cell {@code (width - 1,
+ * height - 1)}.  Headings are in degrees, {@code 0} is east and positive
+ * rotation is clockwise, matching {@link #rotateRight} rotating by a
+ * positive angle as {@link mazerob.nxt.Robot#rotateRight} does.</p>
+ *
+ * <p>{@link #scan} casts one ray per angle of {@link
+ * mazerob.conn.RemotelyControllable#SCANNING_ANGLES}, relative to the
+ * robot: {@code 0} points to the right, {@code 90} straight ahead and
+ * {@code 180} to the left.  Like the ultrasonic sensor behind {@link
+ * lejos.robotics.RotatingRangeScanner}, ranges are whole cm and rays that
+ * hit nothing within {@link mazerob.pc.Heading#MAX_RANGE} give an invalid
+ * reading of {@code -1}.</p>
+ *
+ * <p>The robot keeps track of the cells it has entered or that a scan ray
+ * has crossed, the cells a solver could have mapped, see {@link
+ * #getSeenCells}.</p>
+ *
+ * <p>Every command counts against a command budget; once it is spent the
+ * robot throws {@link java.io.IOException}, the same way a dropped
+ * Bluetooth link would stop a real run.</p>
+ *
+ * <p>Instances are not thread safe; each benchmark run owns one.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class SimulatedRobot implements RemotelyControllable, GoalSensor {
+    /** Maximum range in mm of the simulated ultrasonic sensor */
+    private static final double MAX_RANGE =
+        Heading.toMillimetres(Heading.MAX_RANGE);
+
+    /** Tolerance for comparing ray parameters at grid corners */
+    private static final double EPSILON = 1e-9;
+
+    /** Thread CPU clock used to account time spent simulating */
+    private static final ThreadMXBean THREADS =
+        ManagementFactory.getThreadMXBean();
+
+    /** Maze the robot drives in */
+    private final Maze maze;
+
+    /** Distance in mm of {@link #translateForward} and
+     * {@link #translateBackward} */
+    private final double translationMagnitude;
+
+    /** Angle in degrees of {@link #rotateRight} and {@link #rotateLeft} */
+    private final double rotationMagnitude;
+
+    /** Closest distance in mm the robot center gets to a wall */
+    private final double clearance;
+
+    /** Position of the robot in mm */
+    private double x, y;
+
+    /** Heading of the robot in degrees, in [0, 360) */
+    private double heading;
+
+    /** True once the robot has entered the goal cell */
+    private boolean goalReached;
+
+    /** True once {@link #end} has been called */
+    private boolean ended;
+
+    /** Counters of the commands received */
+    private long translations, rotations, scans, collisions;
+
+    /** Total distance driven in mm */
+    private double distance;
+
+    /** Cells entered or crossed by a scan ray, by {@link Maze} index */
+    private final boolean[] seen;
+
+    /** Number of cells set in {@link #seen} */
+    private int seenCells;
+
+    /** Thread CPU time in ns spent inside this simulator */
+    private long simulationCpuTime;
+
+    /** Number of commands left before the run is aborted */
+    private long commandBudget;
+
+    /**
+     * @param maze Maze the robot drives in
+     * @param translationMagnitude Distance in mm of {@link
+     * #translateForward} and {@link #translateBackward}
+     * @param rotationMagnitude Angle in degrees of {@link #rotateRight}
+     * and {@link #rotateLeft}
+     * @param commandBudget Maximum number of translations, rotations and
+     * scans accepted
+     *
+     */
+    public SimulatedRobot(Maze maze,
+                          double translationMagnitude,
+                          double rotationMagnitude,
+                          long commandBudget) {
+        this.maze = maze;
+        this.commandBudget = commandBudget;
+        this.translationMagnitude = translationMagnitude;
+        this.rotationMagnitude = rotationMagnitude;
+        clearance = maze.getCellSize() / 4;
+        x = maze.getCellSize() / 2;
+        y = maze.getCellSize() / 2;
+        heading = 180.0;
+        seen = new boolean[maze.getWidth() * maze.getHeight()];
+        see(0, 0);
+        goalReached = isAtGoal();
+    }
+
+    /**
+     * Moves along the current heading, stopping short of any wall hit
+     *
+     * @see mazerob.conn.RemotelyControllable#translate
+     */
+    public void translate(double distance) throws IOException {
+        spend();
+        long start = THREADS.getCurrentThreadCpuTime();
+        double angle = distance < 0 ? heading + 180.0 : heading;
+        double wanted = Math.abs(distance);
+        double free = castRay(x, y, angle, wanted + clearance, false);
+
+        translations++;
+        if (free >= 0) {
+            wanted = Math.max(0.0, free - clearance);
+            collisions++;
+        }
+        x += Math.cos(Math.toRadians(angle)) * wanted;
+        y += Math.sin(Math.toRadians(angle)) * wanted;
+        this.distance += wanted;
+        see((int) Math.floor(x / maze.getCellSize()),
+            (int) Math.floor(y / maze.getCellSize()));
+        goalReached |= isAtGoal();
+        simulationCpuTime += THREADS.getCurrentThreadCpuTime() - start;
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#translateForward
+     */
+    public void translateForward() throws IOException {
+        translate(translationMagnitude);
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#translateBackward
+     */
+    public void translateBackward() throws IOException {
+        translate(-translationMagnitude);
+    }
+
+    /**
+     * Positive angles rotate clockwise (to the right)
+     *
+     * @see mazerob.conn.RemotelyControllable#rotate
+     */
+    public void rotate(double angle) throws IOException {
+        spend();
+        rotations++;
+        heading = (heading + angle) % 360.0;
+        if (heading < 0) {
+            heading += 360.0;
+        }
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#rotateRight
+     */
+    public void rotateRight() throws IOException {
+        rotate(rotationMagnitude);
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#rotateLeft
+     */
+    public void rotateLeft() throws IOException {
+        rotate(-rotationMagnitude);
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#scan
+     */
+    public RangeReadings scan() throws IOException {
+        spend();
+        long start = THREADS.getCurrentThreadCpuTime();
+        RangeReadings rangeValues = new RangeReadings(SCANNING_ANGLES.length);
+
+        scans++;
+        for (int i = 0; i < SCANNING_ANGLES.length; i++) {
+            double angle = heading + 90.0 - SCANNING_ANGLES[i];
+            rangeValues.setRange(i, SCANNING_ANGLES[i],
+                toRangeReading(castRay(x, y, angle, MAX_RANGE, true)));
+        }
+        simulationCpuTime += THREADS.getCurrentThreadCpuTime() - start;
+        return rangeValues;
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#end
+     */
+    public void end() {
+        ended = true;
+    }
+
+    /** Takes one command from the budget */
+    private void spend() throws IOException {
+        if (commandBudget-- <= 0) {
+            throw new IOException("Command budget exhausted");
+        }
+    }
+
+    /** @return Distance {@code mm} as the sensor reports it: whole cm,
+     * {@code -1} if invalid */
+    private static float toRangeReading(double mm) {
+        if (mm < 0) {
+            return -1;
+        }
+        return Math.round(mm / Heading.MM_PER_RANGE_UNIT);
+    }
+
+    /**
+     * Distance from a point to the first wall along a ray
+     *
+     * <p>Walks the grid cell by cell (DDA).  A ray that passes exactly
+     * through a grid corner is blocked if any wall touches that
+     * corner.</p>
+     *
+     * @param px Ray origin x in mm
+     * @param py Ray origin y in mm
+     * @param angle Ray direction in degrees
+     * @param maxRange Length in mm of the ray
+     * @param see If true, the cells the ray crosses are seen
+     *
+     * @return Distance in mm to the first wall, or {@code -1} if there is
+     * none within {@code maxRange}
+     */
+    double castRay(double px, double py, double angle, double maxRange,
+                   boolean see) {
+        double size = maze.getCellSize();
+        double dirX = Math.cos(Math.toRadians(angle));
+        double dirY = Math.sin(Math.toRadians(angle));
+        int cx = (int) Math.floor(px / size), cy = (int) Math.floor(py / size);
+        int stepX = dirX > EPSILON ? 1 : dirX < -EPSILON ? -1 : 0;
+        int stepY = dirY > EPSILON ? 1 : dirY < -EPSILON ? -1 : 0;
+        int wallX = stepX > 0 ? Maze.EAST : Maze.WEST;
+        int wallY = stepY > 0 ? Maze.SOUTH : Maze.NORTH;
+        double deltaX = stepX == 0 ? Double.POSITIVE_INFINITY
+            : size / Math.abs(dirX);
+        double deltaY = stepY == 0 ? Double.POSITIVE_INFINITY
+            : size / Math.abs(dirY);
+        double nextX = stepX == 0 ? Double.POSITIVE_INFINITY
+            : ((stepX > 0 ? cx + 1 : cx) * size - px) / dirX;
+        double nextY = stepY == 0 ? Double.POSITIVE_INFINITY
+            : ((stepY > 0 ? cy + 1 : cy) * size - py) / dirY;
+
+        while (true) {
+            if (see) {
+                see(cx, cy);
+            }
+            double t = Math.min(nextX, nextY);
+            if (t > maxRange) {
+                return -1;
+            }
+
+            if (Math.abs(nextX - nextY) < EPSILON) {
+                if (maze.hasWall(cx, cy, wallX)
+                        || maze.hasWall(cx, cy, wallY)
+                        || !maze.contains(cx + stepX, cy + stepY)
+                        || maze.hasWall(cx + stepX, cy, wallY)
+                        || maze.hasWall(cx, cy + stepY, wallX)) {
+                    return t;
+                }
+                cx += stepX;
+                cy += stepY;
+                nextX += deltaX;
+                nextY += deltaY;
+            }
+            else if (nextX < nextY) {
+                if (maze.hasWall(cx, cy, wallX)) {
+                    return t;
+                }
+                cx += stepX;
+                nextX += deltaX;
+            }
+            else {
+                if (maze.hasWall(cx, cy, wallY)) {
+                    return t;
+                }
+                cy += stepY;
+                nextY += deltaY;
+            }
+        }
+    }
+
+    /** Marks cell {@code (cx, cy)} as seen */
+    private void see(int cx, int cy) {
+        if (maze.contains(cx, cy) && !seen[cy * maze.getWidth() + cx]) {
+            seen[cy * maze.getWidth() + cx] = true;
+            seenCells++;
+        }
+    }
+
+    /** @return True if the robot is inside the goal cell */
+    public boolean isAtGoal() {
+        double size = maze.getCellSize();
+        return (int) (x / size) == maze.getWidth() - 1
+            && (int) (y / size) == maze.getHeight() - 1;
+    }
+
+    /** @return True if the robot has entered the goal cell at any time */
+    public boolean isGoalReached() {
+        return goalReached;
+    }
+
+    /** @return True if {@link #end} has been called */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /** @return Maze the robot drives in */
+    public Maze getMaze() {
+        return maze;
+    }
+
+    /** @return Number of translation commands received */
+    public long getTranslations() {
+        return translations;
+    }
+
+    /** @return Number of rotation commands received */
+    public long getRotations() {
+        return rotations;
+    }
+
+    /** @return Number of scans taken */
+    public long getScans() {
+        return scans;
+    }
+
+    /** @return Number of translations stopped short by a wall */
+    public long getCollisions() {
+        return collisions;
+    }
+
+    /** @return Total distance driven in mm */
+    public double getDistance() {
+        return distance;
+    }
+
+    /** @return Number of cells the robot has entered or a scan ray has
+     * crossed */
+    public int getSeenCells() {
+        return seenCells;
+    }
+
+    /** @return Thread CPU time in ns spent simulating translations and
+     * scans */
+    public long getSimulationCpuTime() {
+        return simulationCpuTime;
+    }
+}
@@ -0,0 +1,35 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.io.IOException;
+import mazerob.conn.RemotelyControllable;
+
+/**
+ * Maze solving strategy run by {@link mazerob.bench.Benchmark}
+ *
+ * <p>A solver only drives the robot through the {@link
+ * mazerob.conn.RemotelyControllable} interface, so the same code can drive
+ * a {@link mazerob.pc.Robot}.  A new instance is created for every run,
+ * so implementations may keep per-run state in fields.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public interface Solver {
+    /** @return Short name of the solver, used in reports */
+    public String getName();
+
+    /** Drives the robot until the goal is reached or there is nothing
+     * left to try
+     *
+     * @param robot Robot to drive
+     * @param goal Tells when the goal has been reached
+     *
+     * @throws IOException
+     *
+     */
+    public void solve(RemotelyControllable robot, GoalSensor goal)
+        throws IOException;
+}
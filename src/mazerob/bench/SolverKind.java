@@ -0,0 +1,87 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.util.concurrent.ExecutorService;
+
+/** Solvers known to {@link mazerob.bench.Benchmark}, by command line name.
+ *
+ * @author Pedro I. López
+ *
+ */
+public enum SolverKind {
+
+    /** Creates a {@link mazerob.bench.WallFollower} */
+    WALL_FOLLOWER {
+        public Solver create(double translationMagnitude,
+                             double translationSpeed,
+                             double rotationMagnitude, double rotationSpeed,
+                             ExecutorService executor) {
+            return new WallFollower(translationMagnitude);
+        }
+    },
+
+    /** Creates a {@link mazerob.bench.DepthFirstExplorer} */
+    DEPTH_FIRST {
+        public Solver create(double translationMagnitude,
+                             double translationSpeed,
+                             double rotationMagnitude, double rotationSpeed,
+                             ExecutorService executor) {
+            return new DepthFirstExplorer(translationMagnitude);
+        }
+    },
+
+    /** Creates a {@link mazerob.bench.DepthFirstExplorer} that plans
+     * while moving; the simulator answers a scan at once, so here it only
+     * shows the cost of speculating, not the latency it hides on a real
+     * robot */
+    DEPTH_FIRST_SPECULATIVE {
+        public Solver create(double translationMagnitude,
+                             double translationSpeed,
+                             double rotationMagnitude, double rotationSpeed,
+                             ExecutorService executor) {
+            return new DepthFirstExplorer(translationMagnitude, executor);
+        }
+    },
+
+    /** Creates a {@link mazerob.bench.JunctionExplorer} */
+    JUNCTION_GRAPH {
+        public Solver create(double translationMagnitude,
+                             double translationSpeed,
+                             double rotationMagnitude, double rotationSpeed,
+                             ExecutorService executor) {
+            return new JunctionExplorer(translationMagnitude);
+        }
+    },
+
+    /** Creates a {@link mazerob.bench.FrontierExplorer} */
+    FRONTIER {
+        public Solver create(double translationMagnitude,
+                             double translationSpeed,
+                             double rotationMagnitude, double rotationSpeed,
+                             ExecutorService executor) {
+            return new FrontierExplorer(translationMagnitude,
+                translationSpeed, rotationMagnitude, rotationSpeed, executor);
+        }
+    };
+
+    /**
+     * @param translationMagnitude Distance in mm of one cell
+     * @param translationSpeed Translation speed of the robot, in mm per
+     * second, for solvers that weigh moves by time
+     * @param rotationMagnitude Angle in degrees of a quarter turn of the
+     * robot, for solvers that weigh moves by time
+     * @param rotationSpeed Rotation speed of the robot, in degrees per
+     * second, for solvers that weigh moves by time
+     * @param executor Pool for any work the solver does off the calling
+     * thread, so that it can be measured with the run
+     *
+     * @return A new solver instance for one run
+     */
+    public abstract Solver create(double translationMagnitude,
+                                  double translationSpeed,
+                                  double rotationMagnitude,
+                                  double rotationSpeed,
+                                  ExecutorService executor);
+}
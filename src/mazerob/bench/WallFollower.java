@@ -0,0 +1,80 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.bench;
+
+import java.io.IOException;
+import lejos.robotics.RangeReadings;
+import mazerob.conn.RemotelyControllable;
+import mazerob.pc.Heading;
+
+/**
+ * Right hand rule solver
+ *
+ * <p>Keeps no map, only the reading of the last scan.  Always finds a goal
+ * on the outer border when started with a wall on its right.</p>
+ *
+ * <p>Without a goal it stops once it is back in the cell and direction it
+ * had after its first move: from there on the walk repeats, so it has gone
+ * all around the walls connected to the one it started on.  It dead
+ * reckons its cell only for that.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class WallFollower extends GridSolver {
+    /** Current cell, dead reckoned */
+    private int x, y;
+
+
+    /**
+     * @param translationMagnitude Distance in mm of one cell
+     *
+     */
+    public WallFollower(double translationMagnitude) {
+        super(translationMagnitude);
+    }
+
+    /** @return {@code "wall-follower"} */
+    public String getName() {
+        return "wall-follower";
+    }
+
+    /**
+     * @see mazerob.bench.Solver#solve
+     */
+    public void solve(RemotelyControllable robot, GoalSensor goal)
+            throws IOException {
+        int firstX = 0, firstY = 0, firstDirection = -1;
+
+        while (!goal.isGoalReached()) {
+            RangeReadings readings = robot.scan();
+
+            if (isOpen(readings, Heading.RIGHT_READING)) {
+                turnTo(robot, Heading.turn(direction, 1));
+            }
+            else if (isOpen(readings, Heading.AHEAD_READING)) {
+                // keep direction
+            }
+            else if (isOpen(readings, Heading.LEFT_READING)) {
+                turnTo(robot, Heading.turn(direction, -1));
+            }
+            else {
+                turnTo(robot, Heading.opposite(direction));
+            }
+            robot.translateForward();
+            x += Heading.dx(direction);
+            y += Heading.dy(direction);
+
+            if (firstDirection < 0) {
+                firstX = x;
+                firstY = y;
+                firstDirection = direction;
+            }
+            else if (x == firstX && y == firstY
+                    && direction == firstDirection) {
+                return;
+            }
+        }
+    }
+}
@@ -65,7 +65,8 @@ public interface RemotelyControllable {
      * mazerob.conn.RemotelyControllable#SCANNING_ANGLES}.</p>
      *
      * @return A set of {@link lejos.robotics.RangeReadings} taken the
-     * angles specified.
+     * angles specified.  Ranges are in cm, as the ultrasonic sensor
+     * reports them, and {@code -1} when nothing is in range.
      *
      * @throws IOException
      *
@@ -0,0 +1,52 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import lejos.robotics.RangeReadings;
+
+/**
+ * Writes scans in binary, one record per scan
+ *
+ * <p>A record is the scan number ({@code long}), the script line ({@code
+ * int}) and the readings as written by {@link
+ * lejos.robotics.RangeReadings#dumpObject}, the same encoding used over
+ * the Bluetooth link, so they can be read back with {@link
+ * lejos.robotics.RangeReadings#loadObject}.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class BinaryScanSink implements ScanSink {
+    /** Destination of the records */
+    private final DataOutputStream out;
+
+    /**
+     * @param out Destination of the records
+     *
+     */
+    public BinaryScanSink(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * @see mazerob.pc.ScanSink#write
+     */
+    public void write(long scan, int line, RangeReadings readings)
+            throws IOException {
+        out.writeLong(scan);
+        out.writeInt(line);
+        readings.dumpObject(out);
+    }
+
+    /**
+     * @see mazerob.pc.ScanSink#close
+     */
+    public void close() throws IOException {
+        out.close();
+    }
+}
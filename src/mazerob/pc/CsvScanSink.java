@@ -0,0 +1,66 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import lejos.robotics.RangeReadings;
+import mazerob.conn.RemotelyControllable;
+
+/**
+ * Writes scans as CSV, one row per scan
+ *
+ * <p>Columns are {@code scan}, {@code line} and one range in cm per angle
+ * of {@link mazerob.conn.RemotelyControllable#SCANNING_ANGLES}, as the NXT
+ * sends them, named after the angle ({@code range_0}, {@code range_45},
+ * ...).  Invalid readings are written as {@code -1}.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class CsvScanSink implements ScanSink {
+    /** Destination of the rows */
+    private final Writer out;
+
+    /** Scratch buffer of one row */
+    private final StringBuilder row = new StringBuilder();
+
+    /**
+     * Writes the header row
+     *
+     * @param out Destination of the rows
+     *
+     * @throws IOException
+     *
+     */
+    public CsvScanSink(Writer out) throws IOException {
+        this.out = new BufferedWriter(out);
+        row.append("scan,line");
+        for (float angle : RemotelyControllable.SCANNING_ANGLES) {
+            row.append(",range_").append(Math.round(angle));
+        }
+        this.out.write(row.append('\n').toString());
+    }
+
+    /**
+     * @see mazerob.pc.ScanSink#write
+     */
+    public void write(long scan, int line, RangeReadings readings)
+            throws IOException {
+        row.setLength(0);
+        row.append(scan).append(',').append(line);
+        for (int i = 0; i < readings.getNumReadings(); i++) {
+            row.append(',').append(readings.getRange(i));
+        }
+        out.write(row.append('\n').toString());
+    }
+
+    /**
+     * @see mazerob.pc.ScanSink#close
+     */
+    public void close() throws IOException {
+        out.close();
+    }
+}
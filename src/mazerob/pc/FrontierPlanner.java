@@ -0,0 +1,412 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import mazerob.conn.CommandCode;
+
+/**
+ * Frontier based exploration planner over a {@link mazerob.pc.GridMap}
+ *
+ * <p>The frontier is where known open passages meet unknown ones.  Every
+ * pose (cell and heading) reachable through known open passages is a
+ * candidate place for the next scan.  Its information gain is the
+ * expected number of unknown passages the readings to the right, ahead
+ * and to the left would reveal: along each of them, the first unknown
+ * passage counts one and every further one counts {@code p} times the
+ * previous, {@code p} being the fraction of known passages that are open,
+ * so long unknown stretches are worth more in open arenas than in narrow
+ * mazes.  Its cost is the time to drive there plus the time of a scan,
+ * with every translation step taking {@code translationMagnitude /
+ * translationSpeed} seconds and every quarter turn {@code
+ * rotationMagnitude / rotationSpeed}, the angle the robot actually turns
+ * on {@link mazerob.conn.CommandCode#ROTATE_RIGHT}; {@link #forRobot}
+ * takes them from the calibration of a {@link mazerob.pc.Robot}.  The
+ * planner chooses the candidate of highest gain per second.</p>
+ *
+ * <p>Candidates are enumerated by a Dijkstra search over poses, cheapest
+ * first, in batches that double in size.  Each batch is scored in
+ * parallel when it is large enough, and the search stops once no pose
+ * left could beat the best score even with the largest possible gain, so
+ * a frontier next to the robot is found without searching the whole map.
+ * Ties go to the cheapest candidate, whatever the number of threads.</p>
+ *
+ * <p>Instances are not thread safe, and the map must not change during
+ * {@link #plan}.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class FrontierPlanner {
+    /** Candidates in the first batch of a search */
+    private static final int FIRST_BATCH = 16;
+
+    /** Most candidates in a batch */
+    private static final int MAX_BATCH = 4096;
+
+    /** Smallest batch scored in parallel */
+    private static final int PARALLEL_MIN = 512;
+
+    /** Readings used by {@link GridMap#integrate}, in quarter turns
+     * clockwise from the robot heading */
+    private static final int[] QUARTERS = {1, 0, 3};
+
+    /** Pool scoring the candidates */
+    private final ExecutorService executor;
+
+    /** Number of parts a large batch is split into */
+    private final int parallelism;
+
+    /** Map planned on */
+    private final GridMap map;
+
+    /** Seconds of a translation step, a quarter turn and a scan */
+    private final double stepTime, turnTime, scanTime;
+
+    /** Search scratch space, indexed by pose {@code 4 * cell + heading},
+     * reused between searches */
+    private double[] cost;
+    private int[] parent, visitStamp;
+    private byte[] move;
+    private int stamp;
+    private MinHeap heap;
+
+    /** Candidates of the current batch */
+    private final int[] batch = new int[MAX_BATCH];
+
+    /** Expected gain of a reading whose first unknown passage is {@code
+     * n} passages from its end, {@code n} from {@code 0} to {@link
+     * GridMap#getRayCells} */
+    private double[] expected;
+
+    /**
+     * Creates a planner scoring on the pool shared by the planners of
+     * this package, one thread per available processor
+     *
+     * @param map Map to plan on
+     * @param translationMagnitude Distance in mm of a translation step
+     * @param translationSpeed Translation speed of the robot, in mm per
+     * second
+     * @param rotationMagnitude Angle in degrees the robot turns on each
+     * quarter turn
+     * @param rotationSpeed Rotation speed of the robot, in degrees per
+     * second
+     * @param scanTime Duration of a scan, in seconds
+     *
+     */
+    public FrontierPlanner(GridMap map, double translationMagnitude,
+                           double translationSpeed, double rotationMagnitude,
+                           double rotationSpeed, double scanTime) {
+        this(PlannerPool.get(), Runtime.getRuntime().availableProcessors(),
+            map, translationMagnitude, translationSpeed, rotationMagnitude,
+            rotationSpeed, scanTime);
+    }
+
+    /**
+     * @param executor Pool scoring the candidates
+     * @param parallelism Number of parts a large batch of candidates is
+     * split into, {@code 1} to score on the calling thread only
+     * @param map Map to plan on
+     * @param translationMagnitude Distance in mm of a translation step
+     * @param translationSpeed Translation speed of the robot, in mm per
+     * second
+     * @param rotationMagnitude Angle in degrees the robot turns on each
+     * quarter turn
+     * @param rotationSpeed Rotation speed of the robot, in degrees per
+     * second
+     * @param scanTime Duration of a scan, in seconds
+     *
+     */
+    public FrontierPlanner(ExecutorService executor, int parallelism,
+                           GridMap map, double translationMagnitude,
+                           double translationSpeed, double rotationMagnitude,
+                           double rotationSpeed, double scanTime) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.map = map;
+        stepTime = translationMagnitude / translationSpeed;
+        turnTime = rotationMagnitude / rotationSpeed;
+        this.scanTime = scanTime;
+    }
+
+    /**
+     * Creates a planner for a robot, on a new empty map, scoring on the
+     * shared pool
+     *
+     * <p>Cells are {@link mazerob.pc.Robot#getTranslationMagnitude} wide,
+     * turns are priced with {@link mazerob.pc.Robot#getRotationMagnitude}
+     * and {@link mazerob.pc.Robot#getRotationSpeed} and
+     * readings reach {@link mazerob.pc.Heading#MAX_RANGE}.  The robot
+     * starts at cell {@code (0, 0)} facing {@link mazerob.pc.Heading#EAST};
+     * integrate its scans into {@link #getMap}.</p>
+     *
+     * @param robot Robot the plans are for
+     * @param translationSpeed Translation speed of the robot, in mm per
+     * second; the NXT does not set it, so it is the leJOS pilot default
+     * @param scanTime Duration of a scan, in seconds
+     *
+     * @return A new planner
+     */
+    public static FrontierPlanner forRobot(Robot robot,
+                                           double translationSpeed,
+                                           double scanTime) {
+        GridMap map = new GridMap(robot.getTranslationMagnitude(),
+            Heading.toMillimetres(Heading.MAX_RANGE));
+        return new FrontierPlanner(map, robot.getTranslationMagnitude(),
+            translationSpeed, robot.getRotationMagnitude(),
+            robot.getRotationSpeed(), scanTime);
+    }
+
+    /**
+     * Plans the moves to the pose where the next scan gains the most
+     * information per second
+     *
+     * @param x Cell column of the robot
+     * @param y Cell row of the robot
+     * @param heading Heading of the robot
+     *
+     * @return {@link CommandCode#TRANSLATE_FORWARD}, {@link
+     * CommandCode#TRANSLATE_BACKWARD}, {@link CommandCode#ROTATE_RIGHT} and
+     * {@link CommandCode#ROTATE_LEFT} steps to drive before scanning, or
+     * {@code null} if no frontier is reachable and the map is complete
+     *
+     * @throws InterruptedException If interrupted while waiting for the
+     * scores
+     */
+    public CommandCode[] plan(int x, int y, int heading)
+            throws InterruptedException {
+        int cell = map.index(x, y);
+        if (cell < 0) {
+            return null;
+        }
+        prepareScratch();
+
+        double maxGain = QUARTERS.length * expected[map.getRayCells()];
+        int start = cell * 4 + heading;
+        int best = -1;
+        double bestScore = 0;
+        int batchSize = FIRST_BATCH;
+
+        cost[start] = 0;
+        parent[start] = start;
+        visitStamp[start] = stamp;
+        heap.push(start, 0);
+
+        while (!heap.isEmpty()) {
+            int count = 0;
+            while (!heap.isEmpty() && count < batchSize) {
+                double key = heap.peekKey();
+                if (maxGain / (key + scanTime) <= bestScore) {
+                    heap.clear();
+                    break;
+                }
+
+                int pose = heap.peekItem();
+                heap.pop();
+                if (key > cost[pose]) {
+                    continue;
+                }
+                batch[count++] = pose;
+                expand(pose);
+            }
+
+            int candidate = bestOf(0, count, count >= PARALLEL_MIN
+                ? parallelism : 1);
+            if (candidate >= 0) {
+                double score = score(candidate);
+                if (score > bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            batchSize = Math.min(batchSize * 2, MAX_BATCH);
+        }
+        return best < 0 ? null : route(start, best);
+    }
+
+    /** @return Map planned on */
+    public GridMap getMap() {
+        return map;
+    }
+
+    /** Pushes the poses one move away from {@code pose} */
+    private void expand(int pose) {
+        int cell = pose >> 2, heading = pose & 3;
+        int bits = map.getCell(cell);
+        int back = Heading.opposite(heading);
+
+        if ((bits & (1 << (heading + GridMap.OPEN_SHIFT))) != 0) {
+            relax(pose, (cell + offset(heading)) * 4 + heading,
+                stepTime, CommandCode.TRANSLATE_FORWARD);
+        }
+        if ((bits & (1 << (back + GridMap.OPEN_SHIFT))) != 0) {
+            relax(pose, (cell + offset(back)) * 4 + heading,
+                stepTime, CommandCode.TRANSLATE_BACKWARD);
+        }
+        relax(pose, cell * 4 + Heading.turn(heading, 1),
+            turnTime, CommandCode.ROTATE_RIGHT);
+        relax(pose, cell * 4 + Heading.turn(heading, -1),
+            turnTime, CommandCode.ROTATE_LEFT);
+    }
+
+    /** Reaches {@code to} from {@code from} with {@code command} if that
+     * is cheaper than any way known */
+    private void relax(int from, int to, double time, CommandCode command) {
+        double candidate = cost[from] + time;
+
+        if (visitStamp[to] == stamp && candidate >= cost[to]) {
+            return;
+        }
+        visitStamp[to] = stamp;
+        cost[to] = candidate;
+        parent[to] = from;
+        move[to] = (byte) command.ordinal();
+        heap.push(to, candidate);
+    }
+
+    /** @return Index of the cell next to {@code cell} towards {@code
+     * heading} */
+    private int offset(int heading) {
+        return Heading.dx(heading) + Heading.dy(heading) * map.getStride();
+    }
+
+    /** @return Candidate of {@code batch[from, to)} with the highest
+     * score, the first one on ties, {@code -1} if none gains anything */
+    private int bestOf(int from, int to, int parts)
+            throws InterruptedException {
+        if (parts <= 1) {
+            int best = -1;
+            double bestScore = 0;
+            for (int i = from; i < to; i++) {
+                double score = score(batch[i]);
+                if (score > bestScore) {
+                    best = batch[i];
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        int chunk = (to - from + parts - 1) / parts;
+        for (int i = from; i < to; i += chunk) {
+            final int first = i, last = Math.min(i + chunk, to);
+            results.add(executor.submit(new Callable<Integer>() {
+                public Integer call() throws InterruptedException {
+                    return Integer.valueOf(bestOf(first, last, 1));
+                }
+            }));
+        }
+
+        int best = -1;
+        double bestScore = 0;
+        try {
+            for (Future<Integer> result : results) {
+                int candidate = result.get().intValue();
+                if (candidate >= 0 && score(candidate) > bestScore) {
+                    best = candidate;
+                    bestScore = score(candidate);
+                }
+            }
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        finally {
+            for (Future<Integer> result : results) {
+                result.cancel(true);
+            }
+        }
+        return best;
+    }
+
+    /** @return Information gain per second of scanning at {@code pose} */
+    private double score(int pose) {
+        return gain(pose) / (cost[pose] + scanTime);
+    }
+
+    /** @return Expected number of passages a scan at {@code pose}
+     * reveals */
+    private double gain(int pose) {
+        int cell = pose >> 2, heading = pose & 3;
+        double gain = 0;
+
+        for (int quarters : QUARTERS) {
+            int direction = Heading.turn(heading, quarters);
+            int known = 1 << direction;
+            int open = known << GridMap.OPEN_SHIFT;
+            int step = offset(direction);
+            int rayCells = map.getRayCells();
+
+            for (int i = 0, c = cell; i < rayCells; i++, c += step) {
+                int bits = map.getCell(c);
+                if ((bits & known) == 0) {
+                    gain += expected[rayCells - i];
+                    break;
+                }
+                if ((bits & open) == 0) {
+                    break;
+                }
+            }
+        }
+        return gain;
+    }
+
+    /** @return Moves left in {@link #parent} by the last search */
+    private CommandCode[] route(int from, int to) {
+        CommandCode[] codes = CommandCode.values();
+        int length = 0;
+        for (int pose = to; pose != from; pose = parent[pose]) {
+            length++;
+        }
+        CommandCode[] moves = new CommandCode[length];
+        for (int pose = to, i = length - 1; i >= 0; pose = parent[pose]) {
+            moves[i--] = codes[move[pose]];
+        }
+        return moves;
+    }
+
+    /** Makes the search arrays big enough and starts a new search */
+    private void prepareScratch() {
+        int poses = map.getCapacity() * 4;
+
+        if (cost == null || cost.length < poses) {
+            cost = new double[poses];
+            parent = new int[poses];
+            visitStamp = new int[poses];
+            move = new byte[poses];
+            stamp = 0;
+        }
+        if (heap == null) {
+            heap = new MinHeap(FIRST_BATCH * 4);
+        }
+        heap.clear();
+        if (++stamp == 0) {
+            Arrays.fill(visitStamp, 0);
+            stamp = 1;
+        }
+
+        int rayCells = map.getRayCells();
+        double p = map.getOpenRatio();
+        if (expected == null || expected.length != rayCells + 1) {
+            expected = new double[rayCells + 1];
+        }
+        for (int n = 1; n <= rayCells; n++) {
+            expected[n] = 1 + p * expected[n - 1];
+        }
+    }
+}
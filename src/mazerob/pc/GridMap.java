@@ -0,0 +1,271 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import lejos.robotics.RangeReadings;
+import mazerob.conn.RemotelyControllable;
+
+/**
+ * Map of the passages between grid cells, built from scans
+ *
+ * <p>Every cell has four passages, one per heading (see {@link
+ * mazerob.pc.Heading}), each unknown, open or closed.  A passage is shared
+ * by the two cells it joins.  {@link #integrate} follows the readings to
+ * the right, ahead and to the left of a scan along their whole range, not
+ * just to the next cell: a reading of {@code r} mm (see {@link
+ * mazerob.pc.Heading#toMillimetres}) from the center of a cell crosses
+ * {@code round(r / cellSize - 1/2)} open passages before the wall it hit,
+ * and an invalid reading (nothing within range) crosses {@link
+ * #getRayCells} open passages.  The diagonal readings are not used.</p>
+ *
+ * <p>Cells are kept in a byte array covering the bounding box of the known
+ * passages, which doubles when the map grows past it; coordinates may be
+ * negative.  Instances are not thread safe, but any number of threads may
+ * read a map that is not being updated.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class GridMap {
+    /** Initial side in cells of the stored area */
+    private static final int INITIAL_SIDE = 16;
+
+    /** Bit of the passage through heading {@code h} is {@code 1 << h} in
+     * the known mask and {@code 1 << (h + OPEN_SHIFT)} in the open mask */
+    static final int OPEN_SHIFT = 4;
+
+    /** Index in {@link RemotelyControllable#SCANNING_ANGLES} of the
+     * reading to the right, straight ahead and to the left */
+    private static final int[] READINGS = {Heading.RIGHT_READING,
+        Heading.AHEAD_READING, Heading.LEFT_READING};
+
+    /** Quarter turns clockwise from the robot heading to each reading of
+     * {@link #READINGS} */
+    private static final int[] QUARTERS = {1, 0, 3};
+
+    /** Side in mm of a cell */
+    private final double cellSize;
+
+    /** Most passages a single reading can reveal */
+    private final int rayCells;
+
+    /** Column and row of the first stored cell, and size of the stored
+     * area */
+    private int minX, minY, width, height;
+
+    /** Known and open masks of every stored cell, row by row */
+    private byte[] cells;
+
+    /** Number of known passages, and of those the open ones */
+    private long knownPassages, openPassages;
+
+    /**
+     * @param cellSize Side in mm of a cell, the translation magnitude of
+     * the robot
+     * @param maxRange Range in mm of the range sensor, usually {@link
+     * mazerob.pc.Heading#MAX_RANGE} converted to mm; longer readings are
+     * invalid
+     *
+     */
+    public GridMap(double cellSize, double maxRange) {
+        this.cellSize = cellSize;
+        rayCells = Math.max(1, (int) ((maxRange - cellSize / 2) / cellSize));
+        minX = minY = -INITIAL_SIDE / 2;
+        width = height = INITIAL_SIDE;
+        cells = new byte[width * height];
+    }
+
+    /**
+     * Adds the passages seen by a scan
+     *
+     * @param x Cell column the scan was taken at
+     * @param y Cell row the scan was taken at
+     * @param heading Heading of the robot during the scan
+     * @param readings Readings of the scan
+     *
+     */
+    public void integrate(int x, int y, int heading, RangeReadings readings) {
+        for (int i = 0; i < READINGS.length; i++) {
+            double range = Heading.toMillimetres(
+                readings.getRange(READINGS[i]));
+            int direction = Heading.turn(heading, QUARTERS[i]);
+            int open = range < 0 ? rayCells : Math.min(rayCells,
+                (int) Math.round(range / cellSize - 0.5));
+            int cx = x, cy = y;
+
+            for (int step = 0; step < open; step++) {
+                setPassage(cx, cy, direction, true);
+                cx += Heading.dx(direction);
+                cy += Heading.dy(direction);
+            }
+            if (range >= 0 && open < rayCells) {
+                setPassage(cx, cy, direction, false);
+            }
+        }
+    }
+
+    /**
+     * Sets the state of a passage, overriding what was known of it
+     *
+     * @param x Cell column
+     * @param y Cell row
+     * @param heading Heading of the passage from the cell
+     * @param open True if the passage is open, false if it is closed
+     *
+     */
+    public void setPassage(int x, int y, int heading, boolean open) {
+        int nx = x + Heading.dx(heading), ny = y + Heading.dy(heading);
+        ensure(x, y);
+        ensure(nx, ny);
+
+        int index = index(x, y);
+        int known = 1 << heading, opened = known << OPEN_SHIFT;
+        if ((cells[index] & known) == 0) {
+            knownPassages++;
+            if (open) {
+                openPassages++;
+            }
+        }
+        else if (((cells[index] & opened) != 0) != open) {
+            openPassages += open ? 1 : -1;
+        }
+        mark(index, known, opened, open);
+
+        int back = 1 << Heading.opposite(heading);
+        mark(index(nx, ny), back, back << OPEN_SHIFT, open);
+    }
+
+    /**
+     * @param x Cell column
+     * @param y Cell row
+     * @param heading Heading of the passage from the cell
+     *
+     * @return True if the passage is known, open or closed
+     */
+    public boolean isKnown(int x, int y, int heading) {
+        int index = index(x, y);
+        return index >= 0 && (cells[index] & (1 << heading)) != 0;
+    }
+
+    /**
+     * @param x Cell column
+     * @param y Cell row
+     * @param heading Heading of the passage from the cell
+     *
+     * @return True if the passage is known to be open
+     */
+    public boolean isOpen(int x, int y, int heading) {
+        int index = index(x, y);
+        return index >= 0
+            && (cells[index] & (1 << (heading + OPEN_SHIFT))) != 0;
+    }
+
+    /**
+     * @param x Cell column
+     * @param y Cell row
+     *
+     * @return Set of headings of the cell whose passage is unknown
+     */
+    public int getUnknown(int x, int y) {
+        int index = index(x, y);
+        return index < 0 ? 0xf : ~cells[index] & 0xf;
+    }
+
+    /** @return Number of known passages */
+    public long getKnownCount() {
+        return knownPassages;
+    }
+
+    /** @return Fraction of the known passages that are open, {@code 1/2}
+     * while nothing is known */
+    public double getOpenRatio() {
+        return knownPassages == 0 ? 0.5
+            : (double) openPassages / knownPassages;
+    }
+
+    /** @return Most passages a single reading can reveal */
+    public int getRayCells() {
+        return rayCells;
+    }
+
+    /** @return Side in mm of a cell */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /** @return Number of stored cells; cell indexes are below it */
+    int getCapacity() {
+        return cells.length;
+    }
+
+    /** @return Distance between the indexes of vertically adjacent
+     * cells */
+    int getStride() {
+        return width;
+    }
+
+    /** @return Known and open masks of the cell at {@code index} */
+    int getCell(int index) {
+        return cells[index];
+    }
+
+    /** @return Index of a stored cell, {@code -1} if it is not stored */
+    int index(int x, int y) {
+        x -= minX;
+        y -= minY;
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return -1;
+        }
+        return y * width + x;
+    }
+
+    /** @return Column of the cell at {@code index} */
+    int columnOf(int index) {
+        return minX + index % width;
+    }
+
+    /** @return Row of the cell at {@code index} */
+    int rowOf(int index) {
+        return minY + index / width;
+    }
+
+    /** Sets one passage bit pair of a cell */
+    private void mark(int index, int known, int opened, boolean open) {
+        int cell = cells[index] | known;
+        cells[index] = (byte) (open ? cell | opened : cell & ~opened);
+    }
+
+    /** Grows the stored area until it covers cell {@code (x, y)} */
+    private void ensure(int x, int y) {
+        if (index(x, y) >= 0) {
+            return;
+        }
+
+        int left = 0, right = 0, top = 0, bottom = 0;
+        if (x < minX) {
+            left = Math.max(width, minX - x);
+        }
+        else if (x >= minX + width) {
+            right = Math.max(width, x - minX - width + 1);
+        }
+        if (y < minY) {
+            top = Math.max(height, minY - y);
+        }
+        else if (y >= minY + height) {
+            bottom = Math.max(height, y - minY - height + 1);
+        }
+
+        int newWidth = width + left + right, newHeight = height + top + bottom;
+        byte[] grown = new byte[newWidth * newHeight];
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(cells, row * width, grown,
+                (row + top) * newWidth + left, width);
+        }
+        cells = grown;
+        minX -= left;
+        minY -= top;
+        width = newWidth;
+        height = newHeight;
+    }
+}
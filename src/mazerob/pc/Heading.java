@@ -0,0 +1,139 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import lejos.robotics.RangeReadings;
+import mazerob.conn.RemotelyControllable;
+
+/**
+ * Grid headings and interpretation of {@link
+ * mazerob.conn.RemotelyControllable#scan} readings on a grid
+ *
+ * <p>Headings are quarter turns counted clockwise, the same sense as
+ * {@link mazerob.pc.Robot#rotateRight}: {@link #EAST} is the heading of
+ * the robot when mapping starts, then {@link #SOUTH}, {@link #WEST} and
+ * {@link #NORTH}.  Grid {@code x} grows towards {@link #EAST} and {@code
+ * y} towards {@link #SOUTH}.  Sets of headings are bit masks with bit
+ * {@code 1 << heading} set for every heading in the set.</p>
+ *
+ * <p>Scanning angles are relative to the robot: {@code 0} points to the
+ * right, {@code 90} straight ahead and {@code 180} to the left.  Ranges
+ * are in cm, as {@link lejos.robotics.RotatingRangeScanner} reports them
+ * from the ultrasonic sensor, while distances on the PC side are in mm
+ * like {@code translationMagnitude}; readings are converted here with
+ * {@link #toMillimetres}.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public final class Heading {
+    /** Heading of the robot when mapping starts */
+    public static final int EAST = 0;
+
+    /** A quarter turn to the right of {@link #EAST} */
+    public static final int SOUTH = 1;
+
+    /** Opposite of {@link #EAST} */
+    public static final int WEST = 2;
+
+    /** A quarter turn to the left of {@link #EAST} */
+    public static final int NORTH = 3;
+
+    /** Index in {@link RemotelyControllable#SCANNING_ANGLES} of the
+     * readings to the right, straight ahead and to the left */
+    public static final int RIGHT_READING = indexOf(0f),
+        AHEAD_READING = indexOf(90f), LEFT_READING = indexOf(180f);
+
+    /** Millimetres per unit of a range reading, which is in cm */
+    public static final double MM_PER_RANGE_UNIT = 10.0;
+
+    /** Longest range reading, in cm, reported by the leJOS range scanner;
+     * anything farther reads as {@code -1} */
+    public static final float MAX_RANGE = 180f;
+
+    private Heading() {
+    }
+
+    /** @return Column offset of one step towards {@code heading} */
+    public static int dx(int heading) {
+        return heading == EAST ? 1 : heading == WEST ? -1 : 0;
+    }
+
+    /** @return Row offset of one step towards {@code heading} */
+    public static int dy(int heading) {
+        return heading == SOUTH ? 1 : heading == NORTH ? -1 : 0;
+    }
+
+    /** @return The heading opposite to {@code heading} */
+    public static int opposite(int heading) {
+        return (heading + 2) & 3;
+    }
+
+    /** @return Heading after turning {@code quarters} quarter turns
+     * clockwise from {@code heading}, negative turns counterclockwise */
+    public static int turn(int heading, int quarters) {
+        return (heading + quarters) & 3;
+    }
+
+    /** @return Quarter turns clockwise, in {@code [0, 4)}, to go from
+     * {@code from} to {@code to} */
+    public static int quartersBetween(int from, int to) {
+        return (to - from) & 3;
+    }
+
+    /**
+     * Open passages seen by a scan taken at a grid cell
+     *
+     * @param readings Readings of {@link RemotelyControllable#scan}
+     * @param heading Heading of the robot when scanning
+     * @param threshold Readings farther than this, in mm, are open;
+     * usually the translation magnitude, one cell
+     *
+     * @return Set of open headings among the right, ahead and left
+     * readings; the heading behind the robot is never included
+     */
+    public static int openings(RangeReadings readings, int heading,
+                               double threshold) {
+        int open = 0;
+
+        if (isOpen(readings.getRange(RIGHT_READING), threshold)) {
+            open |= 1 << turn(heading, 1);
+        }
+        if (isOpen(readings.getRange(AHEAD_READING), threshold)) {
+            open |= 1 << heading;
+        }
+        if (isOpen(readings.getRange(LEFT_READING), threshold)) {
+            open |= 1 << turn(heading, -1);
+        }
+        return open;
+    }
+
+    /**
+     * @param range Range reading, in cm
+     * @param threshold Readings farther than this, in mm, are open
+     *
+     * @return True if the reading shows an open passage; invalid readings
+     * mean nothing was in range
+     */
+    public static boolean isOpen(float range, double threshold) {
+        return range < 0 || toMillimetres(range) > threshold;
+    }
+
+    /** @return Range reading {@code range}, in cm, converted to mm;
+     * {@code -1} if the reading is invalid */
+    public static double toMillimetres(float range) {
+        return range < 0 ? -1 : range * MM_PER_RANGE_UNIT;
+    }
+
+    /** @return Index of {@code angle} in
+     * {@link RemotelyControllable#SCANNING_ANGLES} */
+    private static int indexOf(float angle) {
+        for (int i = 0; i < RemotelyControllable.SCANNING_ANGLES.length; i++) {
+            if (RemotelyControllable.SCANNING_ANGLES[i] == angle) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No scanning angle " + angle);
+    }
+}
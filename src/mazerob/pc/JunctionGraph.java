@@ -0,0 +1,398 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.util.Arrays;
+
+/**
+ * Topological map of a maze: junctions joined by corridors
+ *
+ * <p>Nodes are the grid cells where the robot saw anything but a plain
+ * corridor: junctions, dead ends and the start.  Edges are the corridors
+ * between them, weighted by their length in translation steps, and are
+ * undirected.  Every node remembers its open headings (see {@link
+ * mazerob.pc.Heading}) and which of them already lead to a known edge, so
+ * the unexplored exits of the map are always at hand.</p>
+ *
+ * <p>Storage is primitive arrays only.  The adjacency is kept in
+ * compressed sparse row (CSR) form with a fixed row width of four, one
+ * slot per heading, which is the most a grid cell can have: the half edges
+ * of node {@code n} are at indexes {@code [4 * n, 4 * n + 4)}.  Rows never
+ * need rebuilding, so the map can be searched while it grows.  Memory and
+ * search time depend on the number of junctions, not on the area of the
+ * arena.</p>
+ *
+ * <p>Instances are not thread safe.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class JunctionGraph {
+    /** Initial capacity of the node arrays */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Marks a free slot of the cell index */
+    private static final long FREE = Long.MIN_VALUE;
+
+    /** Number of nodes and edges */
+    private int nodeCount, edgeCount;
+
+    /** Cell of every node */
+    private int[] nodeX, nodeY;
+
+    /** Open headings of every node */
+    private byte[] nodeExits;
+
+    /** Adjacency rows: node reached and corridor length leaving node
+     * {@code n} through heading {@code h} at index {@code 4 * n + h};
+     * target {@code -1} if that corridor is unknown */
+    private int[] targets, lengths;
+
+    /** Open addressing index from packed cell coordinates to node */
+    private long[] cellKeys;
+    private int[] cellNodes;
+
+    /** Search scratch space, reused between searches */
+    private int[] cost, parent, visitStamp;
+    private MinHeap heap;
+    private int stamp;
+
+    /** Creates an empty graph */
+    public JunctionGraph() {
+        nodeX = new int[INITIAL_CAPACITY];
+        nodeY = new int[INITIAL_CAPACITY];
+        nodeExits = new byte[INITIAL_CAPACITY];
+        targets = new int[INITIAL_CAPACITY * 4];
+        lengths = new int[INITIAL_CAPACITY * 4];
+        cellKeys = new long[INITIAL_CAPACITY * 2];
+        cellNodes = new int[INITIAL_CAPACITY * 2];
+        Arrays.fill(cellKeys, FREE);
+    }
+
+    /**
+     * Adds a node at a cell, or adds open headings to the node already
+     * there
+     *
+     * @param x Cell column
+     * @param y Cell row
+     * @param exits Set of open headings seen at the cell
+     *
+     * @return Id of the node at the cell
+     */
+    public int addNode(int x, int y, int exits) {
+        int node = findNode(x, y);
+
+        if (node >= 0) {
+            nodeExits[node] |= exits;
+            return node;
+        }
+
+        node = nodeCount++;
+        if (node == nodeX.length) {
+            int capacity = nodeX.length * 2;
+            nodeX = Arrays.copyOf(nodeX, capacity);
+            nodeY = Arrays.copyOf(nodeY, capacity);
+            nodeExits = Arrays.copyOf(nodeExits, capacity);
+            targets = Arrays.copyOf(targets, capacity * 4);
+            lengths = Arrays.copyOf(lengths, capacity * 4);
+        }
+        nodeX[node] = x;
+        nodeY[node] = y;
+        nodeExits[node] = (byte) exits;
+        Arrays.fill(targets, node * 4, node * 4 + 4, -1);
+        indexCell(x, y, node);
+        return node;
+    }
+
+    /**
+     * Adds a corridor between two nodes
+     *
+     * <p>A corridor already known at exit {@code exitA} of {@code a} or
+     * exit {@code exitB} of {@code b} is kept, with the shorter of both
+     * lengths if it joins the same exits.  A loop back to the node it left
+     * through another exit is kept so both exits count as explored; it
+     * never shortens a route.</p>
+     *
+     * @param a Node the corridor was entered from
+     * @param exitA Heading the corridor leaves {@code a} through
+     * @param b Node the corridor ends at
+     * @param exitB Heading the corridor leaves {@code b} through
+     * @param length Length of the corridor in translation steps
+     *
+     * @return True if a new edge was added
+     */
+    public boolean addEdge(int a, int exitA, int b, int exitB, int length) {
+        int slotA = a * 4 + exitA, slotB = b * 4 + exitB;
+
+        if (slotA == slotB) {
+            return false;
+        }
+        if (targets[slotA] >= 0 || targets[slotB] >= 0) {
+            if (targets[slotA] == b && targets[slotB] == a
+                    && length < lengths[slotA]) {
+                lengths[slotA] = length;
+                lengths[slotB] = length;
+            }
+            return false;
+        }
+
+        targets[slotA] = b;
+        lengths[slotA] = length;
+        targets[slotB] = a;
+        lengths[slotB] = length;
+        nodeExits[a] |= 1 << exitA;
+        nodeExits[b] |= 1 << exitB;
+        edgeCount++;
+        return true;
+    }
+
+    /** @return Id of the node at cell {@code (x, y)}, {@code -1} if
+     * none */
+    public int findNode(int x, int y) {
+        long key = pack(x, y);
+        int mask = cellKeys.length - 1;
+
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (cellKeys[i] == key) {
+                return cellNodes[i];
+            }
+            if (cellKeys[i] == FREE) {
+                return -1;
+            }
+        }
+    }
+
+    /** @return Number of nodes */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /** @return Number of edges */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /** @return Cell column of {@code node} */
+    public int getX(int node) {
+        return nodeX[node];
+    }
+
+    /** @return Cell row of {@code node} */
+    public int getY(int node) {
+        return nodeY[node];
+    }
+
+    /** @return Set of open headings of {@code node} */
+    public int getExits(int node) {
+        return nodeExits[node];
+    }
+
+    /** @return Set of open headings of {@code node} that do not lead to a
+     * known edge yet */
+    public int getUnexploredExits(int node) {
+        int unexplored = nodeExits[node];
+
+        for (int heading = 0; heading < 4; heading++) {
+            if (targets[node * 4 + heading] >= 0) {
+                unexplored &= ~(1 << heading);
+            }
+        }
+        return unexplored;
+    }
+
+    /** @return Node reached leaving {@code node} through {@code heading},
+     * {@code -1} if that corridor is unknown */
+    public int getNeighbour(int node, int heading) {
+        return targets[node * 4 + heading];
+    }
+
+    /** @return Length in steps of the corridor leaving {@code node}
+     * through {@code heading}, {@code -1} if unknown */
+    public int getEdgeLength(int node, int heading) {
+        int slot = node * 4 + heading;
+        return targets[slot] < 0 ? -1 : lengths[slot];
+    }
+
+    /** @return Heading of the shortest corridor leaving {@code from}
+     * towards its neighbour {@code to}, {@code -1} if they are not
+     * adjacent */
+    public int headingTowards(int from, int to) {
+        int best = -1;
+
+        for (int heading = 0; heading < 4; heading++) {
+            int slot = from * 4 + heading;
+            if (targets[slot] == to
+                    && (best < 0 || lengths[slot] < lengths[from * 4 + best])) {
+                best = heading;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Shortest route between two nodes (A*, Manhattan heuristic)
+     *
+     * @param from Start node
+     * @param to Goal node
+     *
+     * @return Nodes of the route from {@code from} to {@code to}, both
+     * included, or {@code null} if {@code to} cannot be reached
+     */
+    public int[] shortestPath(int from, int to) {
+        if (search(from, to) < 0) {
+            return null;
+        }
+        return route(from, to);
+    }
+
+    /**
+     * Shortest route to the closest node with unexplored exits (Dijkstra)
+     *
+     * @param from Start node
+     *
+     * @return Nodes of the route, {@code from} first, or {@code null} if
+     * no reachable node has unexplored exits
+     */
+    public int[] pathToUnexplored(int from) {
+        int to = search(from, -1);
+
+        if (to < 0) {
+            return null;
+        }
+        return route(from, to);
+    }
+
+    /**
+     * @param from Start node
+     * @param to Goal node
+     *
+     * @return Length in steps of the shortest route between the nodes, or
+     * {@code -1} if {@code to} cannot be reached
+     */
+    public int distance(int from, int to) {
+        return search(from, to) < 0 ? -1 : cost[to];
+    }
+
+    /** @return Route left in {@link #parent} by the last search */
+    private int[] route(int from, int to) {
+        int length = 1;
+        for (int node = to; node != from; node = parent[node]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int node = to, i = length - 1; i >= 0; node = parent[node]) {
+            path[i--] = node;
+        }
+        return path;
+    }
+
+    /** Runs A* from {@code from} to {@code to}, or Dijkstra to the
+     * closest node with unexplored exits if {@code to} is {@code -1},
+     * leaving the route in {@link #parent}
+     *
+     * @return Node reached, {@code -1} if there is none */
+    private int search(int from, int to) {
+        prepareScratch();
+
+        cost[from] = 0;
+        parent[from] = from;
+        visitStamp[from] = stamp;
+        heap.push(from, heuristic(from, to));
+
+        while (!heap.isEmpty()) {
+            int node = heap.peekItem();
+            double key = heap.peekKey();
+            heap.pop();
+
+            if (node == to || (to < 0 && getUnexploredExits(node) != 0)) {
+                return node;
+            }
+            if (key - heuristic(node, to) > cost[node]) {
+                continue;
+            }
+            for (int slot = node * 4; slot < node * 4 + 4; slot++) {
+                int target = targets[slot];
+                if (target < 0) {
+                    continue;
+                }
+
+                int candidate = cost[node] + lengths[slot];
+                if (visitStamp[target] != stamp || candidate < cost[target]) {
+                    visitStamp[target] = stamp;
+                    cost[target] = candidate;
+                    parent[target] = node;
+                    heap.push(target, candidate + heuristic(target, to));
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** @return Manhattan distance in steps between two nodes, {@code 0}
+     * if {@code b} is {@code -1} */
+    private int heuristic(int a, int b) {
+        if (b < 0) {
+            return 0;
+        }
+        return Math.abs(nodeX[a] - nodeX[b]) + Math.abs(nodeY[a] - nodeY[b]);
+    }
+
+    /** Makes the search arrays big enough and starts a new search */
+    private void prepareScratch() {
+        if (cost == null || cost.length < nodeCount) {
+            cost = new int[nodeX.length];
+            parent = new int[nodeX.length];
+            visitStamp = new int[nodeX.length];
+            stamp = 0;
+        }
+        if (heap == null) {
+            heap = new MinHeap(INITIAL_CAPACITY);
+        }
+        heap.clear();
+        if (++stamp == 0) {
+            Arrays.fill(visitStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    /** Adds a cell to the cell index, growing it when half full */
+    private void indexCell(int x, int y, int node) {
+        if (nodeCount * 2 > cellKeys.length) {
+            long[] oldKeys = cellKeys;
+            int[] oldNodes = cellNodes;
+            cellKeys = new long[oldKeys.length * 2];
+            cellNodes = new int[oldKeys.length * 2];
+            Arrays.fill(cellKeys, FREE);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != FREE) {
+                    insert(oldKeys[i], oldNodes[i]);
+                }
+            }
+        }
+        insert(pack(x, y), node);
+    }
+
+    /** Inserts a key known to be absent into the cell index */
+    private void insert(long key, int node) {
+        int mask = cellKeys.length - 1;
+        int i = hash(key) & mask;
+
+        while (cellKeys[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+        cellKeys[i] = key;
+        cellNodes[i] = node;
+    }
+
+    /** @return Cell coordinates packed in one long */
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    /** @return Well mixed hash of a packed cell */
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+}
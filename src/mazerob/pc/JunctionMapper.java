@@ -0,0 +1,215 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.io.IOException;
+import lejos.robotics.RangeReadings;
+import mazerob.conn.RemotelyControllable;
+
+/**
+ * Builds a {@link mazerob.pc.JunctionGraph} from the commands and scans
+ * of a robot it drives
+ *
+ * <p>Wraps any {@link mazerob.conn.RemotelyControllable} and forwards
+ * every call to it.  The pose of the robot is dead reckoned on a grid
+ * whose cells are {@code translationMagnitude} mm wide: {@link
+ * #translateForward} and {@link #translateBackward} move one cell, {@link
+ * #rotateRight} and {@link #rotateLeft} turn a quarter, and {@link
+ * #translate} and {@link #rotate} are rounded to whole cells and quarter
+ * turns of 90 degrees.</p>
+ *
+ * <p>Every {@link #scan} classifies the current cell from its open
+ * headings (see {@link mazerob.pc.Heading#openings}), counting the
+ * heading the robot came from as open.  Cells with exactly two open
+ * headings are corridor and are not stored; any other cell becomes a node
+ * and the corridor walked since the previous node becomes an edge.
+ * Junctions passed without scanning are not seen, their corridors are
+ * merged into one longer edge.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class JunctionMapper implements RemotelyControllable {
+    /** Robot driven */
+    private final RemotelyControllable robot;
+
+    /** Map being built */
+    private final JunctionGraph graph;
+
+    /** Length in mm of a grid cell, one translation step */
+    private final double translationMagnitude;
+
+    /** Dead reckoned cell and heading */
+    private int x, y, heading;
+
+    /** Heading of the last translation step, {@code -1} before the first */
+    private int lastStep;
+
+    /** Last node passed, {@code -1} before the first scan */
+    private int lastNode;
+
+    /** Heading the robot left {@link #lastNode} through */
+    private int lastExit;
+
+    /** Steps walked since {@link #lastNode} */
+    private int steps;
+
+    /**
+     * @param robot Robot to drive
+     * @param translationMagnitude {@code translationMagnitude} of the
+     * robot, in mm
+     *
+     */
+    public JunctionMapper(RemotelyControllable robot,
+                          double translationMagnitude) {
+        this.robot = robot;
+        this.translationMagnitude = translationMagnitude;
+        graph = new JunctionGraph();
+        heading = Heading.EAST;
+        lastStep = -1;
+        lastNode = -1;
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#translate
+     */
+    public void translate(double distance) throws IOException {
+        robot.translate(distance);
+        step((int) Math.round(distance / translationMagnitude));
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#translateForward
+     */
+    public void translateForward() throws IOException {
+        robot.translateForward();
+        step(1);
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#translateBackward
+     */
+    public void translateBackward() throws IOException {
+        robot.translateBackward();
+        step(-1);
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#rotate
+     */
+    public void rotate(double angle) throws IOException {
+        robot.rotate(angle);
+        heading = Heading.turn(heading, (int) Math.round(angle / 90.0));
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#rotateRight
+     */
+    public void rotateRight() throws IOException {
+        robot.rotateRight();
+        heading = Heading.turn(heading, 1);
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#rotateLeft
+     */
+    public void rotateLeft() throws IOException {
+        robot.rotateLeft();
+        heading = Heading.turn(heading, -1);
+    }
+
+    /**
+     * Scans and updates the map with the current cell
+     *
+     * @see mazerob.conn.RemotelyControllable#scan
+     */
+    public RangeReadings scan() throws IOException {
+        RangeReadings readings = robot.scan();
+        update(Heading.openings(readings, heading, translationMagnitude));
+        return readings;
+    }
+
+    /**
+     * @see mazerob.conn.RemotelyControllable#end
+     */
+    public void end() throws IOException {
+        robot.end();
+    }
+
+    /**
+     * Updates the map with the open headings of the current cell
+     *
+     * <p>Called by {@link #scan}; also usable to feed readings obtained
+     * some other way.</p>
+     *
+     * @param openings Set of open headings seen at the current cell,
+     * without the heading behind the robot
+     *
+     * @return Node of the current cell, {@code -1} if it is corridor
+     */
+    public int update(int openings) {
+        if (lastStep >= 0) {
+            openings |= 1 << Heading.opposite(lastStep);
+        }
+
+        int node = graph.findNode(x, y);
+        if (node < 0 && lastNode >= 0 && Integer.bitCount(openings) == 2) {
+            return -1;
+        }
+
+        node = graph.addNode(x, y, openings);
+        if (lastNode >= 0 && steps > 0) {
+            graph.addEdge(lastNode, lastExit, node,
+                Heading.opposite(lastStep), steps);
+        }
+        lastNode = node;
+        steps = 0;
+        return node;
+    }
+
+    /** Moves the dead reckoned pose {@code cells} cells along the current
+     * heading, backwards if negative */
+    private void step(int cells) {
+        if (cells == 0) {
+            return;
+        }
+
+        int direction = cells > 0 ? heading : Heading.opposite(heading);
+        int count = Math.abs(cells);
+
+        if (steps == 0) {
+            lastExit = direction;
+        }
+        x += Heading.dx(direction) * count;
+        y += Heading.dy(direction) * count;
+        steps += count;
+        lastStep = direction;
+    }
+
+    /** @return Map built so far */
+    public JunctionGraph getGraph() {
+        return graph;
+    }
+
+    /** @return Dead reckoned cell column */
+    public int getX() {
+        return x;
+    }
+
+    /** @return Dead reckoned cell row */
+    public int getY() {
+        return y;
+    }
+
+    /** @return Dead reckoned heading, see {@link mazerob.pc.Heading} */
+    public int getHeading() {
+        return heading;
+    }
+
+    /** @return Node of the current cell, {@code -1} if the robot is in a
+     * corridor or not mapped yet */
+    public int getNode() {
+        return steps == 0 ? lastNode : graph.findNode(x, y);
+    }
+}
@@ -0,0 +1,102 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of {@code int} items keyed by {@code double}, the open
+ * set of the graph searches in this package
+ *
+ * <p>Items and keys are kept in parallel primitive arrays that grow as
+ * needed and are reused after {@link #clear}, so a search allocates
+ * nothing once the heap is big enough.  An item may be pushed again with
+ * a lower key; the caller skips the stale copy when it comes out.</p>
+ *
+ * <p>Instances are not thread safe.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+final class MinHeap {
+    /** Items and their keys, in heap order */
+    private int[] items;
+    private double[] keys;
+
+    /** Number of items */
+    private int size;
+
+    /** @param capacity Initial capacity */
+    MinHeap(int capacity) {
+        items = new int[capacity];
+        keys = new double[capacity];
+    }
+
+    /** @return True if there is no item */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Removes every item */
+    void clear() {
+        size = 0;
+    }
+
+    /** @return Item of lowest key; the heap must not be empty */
+    int peekItem() {
+        return items[0];
+    }
+
+    /** @return Lowest key; the heap must not be empty */
+    double peekKey() {
+        return keys[0];
+    }
+
+    /** Inserts {@code item} with key {@code key} */
+    void push(int item, double key) {
+        int i = size++;
+
+        if (i == items.length) {
+            items = Arrays.copyOf(items, i * 2);
+            keys = Arrays.copyOf(keys, i * 2);
+        }
+
+        while (i > 0) {
+            int up = (i - 1) >> 1;
+            if (keys[up] <= key) {
+                break;
+            }
+            items[i] = items[up];
+            keys[i] = keys[up];
+            i = up;
+        }
+        items[i] = item;
+        keys[i] = key;
+    }
+
+    /** Removes the item of lowest key; the heap must not be empty */
+    void pop() {
+        int item = items[--size];
+        double key = keys[size];
+        int i = 0;
+
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= key) {
+                break;
+            }
+            items[i] = items[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        items[i] = item;
+        keys[i] = key;
+    }
+}
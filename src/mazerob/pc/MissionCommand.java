@@ -0,0 +1,63 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import mazerob.conn.CommandCode;
+
+/**
+ * One command of a mission script, see {@link mazerob.pc.MissionReader}
+ *
+ * @author Pedro I. López
+ *
+ */
+public final class MissionCommand {
+    /** Robot method to invoke */
+    private final CommandCode commandCode;
+
+    /** Distance or angle of {@link CommandCode#TRANSLATE} and {@link
+     * CommandCode#ROTATE}, {@code 0} otherwise */
+    private final double argument;
+
+    /** Line of the script the command was read from */
+    private final int line;
+
+    /**
+     * @param commandCode Robot method to invoke
+     * @param argument Distance or angle, {@code 0} if the method takes none
+     * @param line Line of the script the command was read from
+     *
+     */
+    public MissionCommand(CommandCode commandCode, double argument,
+                          int line) {
+        this.commandCode = commandCode;
+        this.argument = argument;
+        this.line = line;
+    }
+
+    /** @return Robot method to invoke */
+    public CommandCode getCommandCode() {
+        return commandCode;
+    }
+
+    /** @return Distance or angle, {@code 0} if the method takes none */
+    public double getArgument() {
+        return argument;
+    }
+
+    /** @return Line of the script the command was read from */
+    public int getLine() {
+        return line;
+    }
+
+    /** @return True if {@code commandCode} takes a distance or an angle */
+    static boolean takesArgument(CommandCode commandCode) {
+        return commandCode == CommandCode.TRANSLATE
+            || commandCode == CommandCode.ROTATE;
+    }
+
+    public String toString() {
+        return takesArgument(commandCode) ? commandCode + " " + argument
+            : commandCode.toString();
+    }
+}
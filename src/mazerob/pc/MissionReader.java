@@ -0,0 +1,234 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import mazerob.conn.CommandCode;
+
+/**
+ * Streaming parser of mission scripts
+ *
+ * <p>A mission script is plain text with one command per line, named
+ * after the {@link mazerob.conn.CommandCode} constants, case
+ * insensitive.  {@code TRANSLATE} takes a distance in mm and {@code
+ * ROTATE} an angle in degrees; the other commands take no argument.
+ * Blocks between {@code REPEAT n} and {@code ENDREPEAT} are run {@code n}
+ * times and may be nested.  Everything after a {@code #} is a comment.</p>
+ *
+ * <pre>
+ * # square calibration, scanning at every corner
+ * REPEAT 4
+ *     TRANSLATE 300
+ *     ROTATE_RIGHT
+ *     SCAN
+ * ENDREPEAT
+ * </pre>
+ *
+ * <p>The script is read lazily, one command per call to {@link #next}, so
+ * only the body of the enclosing {@code REPEAT} blocks is ever held in
+ * memory.  Syntax errors are reported as {@link java.io.IOException}s
+ * whose message starts with the line number.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class MissionReader {
+    /** Keyword opening a repeated block */
+    private static final String REPEAT = "REPEAT";
+
+    /** Keyword closing a repeated block */
+    private static final String END_REPEAT = "ENDREPEAT";
+
+    /** Returned by {@link #readItem} for {@link #END_REPEAT} */
+    private static final Object END_OF_BLOCK = new Object();
+
+    /** Script being read */
+    private final BufferedReader in;
+
+    /** Number of the last line read */
+    private int lineNumber;
+
+    /** Blocks being repeated, innermost first */
+    private final Deque<Frame> frames = new ArrayDeque<Frame>();
+
+    /** Parsed {@code REPEAT} block: items are {@link MissionCommand}s and
+     * nested blocks */
+    private static class Block {
+        final int count;
+        final List<Object> items = new ArrayList<Object>();
+
+        Block(int count) {
+            this.count = count;
+        }
+    }
+
+    /** Position inside a block being repeated */
+    private static class Frame {
+        final Block block;
+        int index;
+        int remaining;
+
+        Frame(Block block) {
+            this.block = block;
+            remaining = block.count;
+        }
+    }
+
+    /**
+     * @param in Script to read
+     *
+     */
+    public MissionReader(Reader in) {
+        this.in = new BufferedReader(in);
+    }
+
+    /**
+     * @return Next command of the mission, {@code null} at its end
+     *
+     * @throws IOException If the script cannot be read or has a syntax
+     * error
+     */
+    public MissionCommand next() throws IOException {
+        while (true) {
+            Object item;
+
+            if (frames.isEmpty()) {
+                item = readItem();
+                if (item == null) {
+                    return null;
+                }
+                if (item == END_OF_BLOCK) {
+                    throw error(END_REPEAT + " without " + REPEAT);
+                }
+            }
+            else {
+                Frame frame = frames.peek();
+                if (frame.index == frame.block.items.size()) {
+                    frame.index = 0;
+                    if (--frame.remaining <= 0) {
+                        frames.pop();
+                    }
+                    continue;
+                }
+                item = frame.block.items.get(frame.index++);
+            }
+
+            if (item instanceof Block) {
+                Block block = (Block) item;
+                if (block.count > 0 && !block.items.isEmpty()) {
+                    frames.push(new Frame(block));
+                }
+                continue;
+            }
+            return (MissionCommand) item;
+        }
+    }
+
+    /** Closes the script */
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /** @return Next command or block of the script, {@link #END_OF_BLOCK}
+     * or {@code null} at the end of the script */
+    private Object readItem() throws IOException {
+        String line;
+
+        do {
+            line = in.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+        } while (line.length() == 0);
+
+        String[] tokens = line.split("\\s+");
+        String name = tokens[0].toUpperCase(Locale.ROOT);
+
+        if (name.equals(END_REPEAT)) {
+            expectTokens(tokens, 1);
+            return END_OF_BLOCK;
+        }
+        if (name.equals(REPEAT)) {
+            expectTokens(tokens, 2);
+            Block block = new Block(parseCount(tokens[1]));
+            int opened = lineNumber;
+            while (true) {
+                Object item = readItem();
+                if (item == null) {
+                    throw new IOException(opened + ": " + REPEAT
+                        + " without " + END_REPEAT);
+                }
+                if (item == END_OF_BLOCK) {
+                    return block;
+                }
+                block.items.add(item);
+            }
+        }
+
+        CommandCode commandCode;
+        try {
+            commandCode = CommandCode.valueOf(name);
+        }
+        catch (IllegalArgumentException e) {
+            throw error("unknown command " + tokens[0]);
+        }
+        if (MissionCommand.takesArgument(commandCode)) {
+            expectTokens(tokens, 2);
+            return new MissionCommand(commandCode, parseNumber(tokens[1]),
+                lineNumber);
+        }
+        expectTokens(tokens, 1);
+        return new MissionCommand(commandCode, 0, lineNumber);
+    }
+
+    /** Checks the number of tokens of the current line */
+    private void expectTokens(String[] tokens, int count) throws IOException {
+        if (tokens.length != count) {
+            throw error(tokens[0] + " takes " + (count - 1)
+                + (count == 2 ? " argument" : " arguments"));
+        }
+    }
+
+    /** @return {@code token} as a distance or an angle */
+    private double parseNumber(String token) throws IOException {
+        try {
+            return Double.parseDouble(token);
+        }
+        catch (NumberFormatException e) {
+            throw error("not a number: " + token);
+        }
+    }
+
+    /** @return {@code token} as a repetition count */
+    private int parseCount(String token) throws IOException {
+        try {
+            int count = Integer.parseInt(token);
+            if (count >= 0) {
+                return count;
+            }
+        }
+        catch (NumberFormatException e) {
+            // reported below
+        }
+        throw error("not a repetition count: " + token);
+    }
+
+    /** @return Syntax error at the current line */
+    private IOException error(String message) {
+        return new IOException(lineNumber + ": " + message);
+    }
+}
@@ -0,0 +1,260 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import mazerob.conn.RemotelyControllable;
+
+/**
+ * Runs mission scripts on a robot, streaming scan readings to a {@link
+ * mazerob.pc.ScanSink}
+ *
+ * <p>Commands are read one at a time from a {@link
+ * mazerob.pc.MissionReader}, so scripts of any length run in constant
+ * memory.  When driving a {@link mazerob.pc.Robot} the runner does not
+ * wait for each scan: commands are batched into as few Bluetooth packets
+ * as possible and up to {@code lookahead} commands, counting the oldest
+ * scan still unanswered, are in flight before its readings are received,
+ * overlapping the link round trips with the NXT's own motion.  A
+ * lookahead of {@code 1} waits for every scan before sending anything
+ * else, like {@link mazerob.pc.Robot#scan}.  Other
+ * robots are driven one command at a time.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+public class MissionRunner {
+    /** Robot driven */
+    private final RemotelyControllable robot;
+
+    /** Destination of the readings */
+    private final ScanSink sink;
+
+    /** Maximum number of commands in flight counting the oldest
+     * unanswered scan */
+    private final int lookahead;
+
+    /** Unanswered scans: number of the command that requested each one
+     * and its script line, oldest first */
+    private final Deque<long[]> pending = new ArrayDeque<long[]>();
+
+    /** Commands sent and scans received so far */
+    private long sent, received;
+
+    /** True once an {@code END} command has been run */
+    private boolean ended;
+
+    /**
+     * @param robot Robot to drive
+     * @param sink Destination of the readings
+     * @param lookahead Maximum number of commands in flight counting the
+     * oldest unanswered scan, at least {@code 1}
+     *
+     */
+    public MissionRunner(RemotelyControllable robot, ScanSink sink,
+                         int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("lookahead < 1: " + lookahead);
+        }
+        this.robot = robot;
+        this.sink = sink;
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * Runs every command of {@code mission} and waits for the readings of
+     * every scan
+     *
+     * <p>An {@code END} command ends the robot application and the
+     * mission; commands after it are not read.  Without one the robot is
+     * left running, see {@link #isEnded}.</p>
+     *
+     * @param mission Script to run
+     *
+     * @return Number of scans written to the sink
+     *
+     * @throws IOException If the script has an error or the link fails
+     *
+     */
+    public long run(MissionReader mission) throws IOException {
+        Robot pipelined = robot instanceof Robot ? (Robot) robot : null;
+
+        if (pipelined != null) {
+            pipelined.setAutoFlush(false);
+        }
+        try {
+            MissionCommand command;
+            while ((command = mission.next()) != null) {
+                switch (command.getCommandCode()) {
+                    case TRANSLATE:
+                        robot.translate(command.getArgument());
+                        break;
+                    case TRANSLATE_FORWARD:
+                        robot.translateForward();
+                        break;
+                    case TRANSLATE_BACKWARD:
+                        robot.translateBackward();
+                        break;
+                    case ROTATE:
+                        robot.rotate(command.getArgument());
+                        break;
+                    case ROTATE_RIGHT:
+                        robot.rotateRight();
+                        break;
+                    case ROTATE_LEFT:
+                        robot.rotateLeft();
+                        break;
+                    case SCAN:
+                        if (pipelined == null) {
+                            sink.write(received++, command.getLine(),
+                                robot.scan());
+                            break;
+                        }
+                        pipelined.requestScan();
+                        pending.add(new long[] {sent, command.getLine()});
+                        break;
+                    case END:
+                        drain(pipelined, 0);
+                        ended = true;
+                        robot.end();
+                        return received;
+                    default:
+                        throw new IOException(command.getLine()
+                            + ": unsupported command " + command);
+                }
+                sent++;
+                drain(pipelined, lookahead);
+            }
+            drain(pipelined, 0);
+            return received;
+        }
+        finally {
+            if (pipelined != null) {
+                pipelined.setAutoFlush(true);
+            }
+        }
+    }
+
+    /** @return True if the mission ran an {@code END} command, so the
+     * robot must not be ended again */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /** Receives pending scans until fewer than {@code window} commands,
+     * counting the oldest pending scan, are in flight, flushing first if
+     * any must be received */
+    private void drain(Robot pipelined, int window) throws IOException {
+        if (pipelined == null) {
+            return;
+        }
+        if (pending.isEmpty() || sent - pending.peek()[0] < window) {
+            if (window == 0) {
+                pipelined.flush();
+            }
+            return;
+        }
+
+        pipelined.flush();
+        do {
+            long[] scan = pending.poll();
+            sink.write(received++, (int) scan[1], pipelined.receiveScan());
+        } while (!pending.isEmpty() && sent - pending.peek()[0] >= window);
+    }
+
+    /** Mission runner entry point.
+     *
+     * <p>Command line positional arguments: the eight arguments of {@link
+     * mazerob.pc.PC#main} configuring the {@link mazerob.pc.Robot},
+     * followed by</p>
+     *
+     * <ol start="9">
+     * <li>{@code missionFile}, script to run, see {@link
+     * mazerob.pc.MissionReader}</li>
+     * <li>{@code scanFile}, file the readings are written to, as CSV (see
+     * {@link mazerob.pc.CsvScanSink}) if its name ends in {@code .csv},
+     * binary (see {@link mazerob.pc.BinaryScanSink}) otherwise</li>
+     * <li>{@code lookahead} argument to {@link
+     * mazerob.pc.MissionRunner#MissionRunner}</li>
+     * </ol>
+     *
+     * <p>The robot is ended when the mission is over, even if the script
+     * has no {@code END} command or fails.</p>
+     *
+     */
+    public static void main(String[] args) {
+        String r0Name, r0Address, missionFile, scanFile;
+        double r0WheelDiameter, r0TrackWidth, r0RotationSpeed,
+               r0TranslationMagnitude, r0RotationMagnitude;
+        boolean r0Reverse;
+        int lookahead;
+        Robot r0;
+        MissionRunner runner = null;
+        boolean failed = false;
+
+        assert args.length == 11;
+
+        r0Name = args[0];
+        r0Address = args[1];
+        r0WheelDiameter = Double.parseDouble(args[2]);
+        r0TrackWidth = Double.parseDouble(args[3]);
+        r0Reverse = Boolean.parseBoolean(args[4]);
+        r0RotationSpeed = Double.parseDouble(args[5]);
+        r0TranslationMagnitude = Double.parseDouble(args[6]);
+        r0RotationMagnitude = Double.parseDouble(args[7]);
+        missionFile = args[8];
+        scanFile = args[9];
+        lookahead = Integer.parseInt(args[10]);
+        System.out.println(r0Name + " : " + r0Address);
+        r0 = new Robot( r0Name,
+                        r0Address,
+                        new LogListener(),
+                        r0WheelDiameter,
+                        r0TrackWidth,
+                        r0Reverse,
+                        r0RotationSpeed,
+                        r0TranslationMagnitude,
+                        r0RotationMagnitude
+                        );
+
+        try {
+            MissionReader mission = new MissionReader(new InputStreamReader(
+                new FileInputStream(missionFile), "UTF-8"));
+            ScanSink sink = scanFile.endsWith(".csv")
+                ? new CsvScanSink(new OutputStreamWriter(
+                    new FileOutputStream(scanFile), "UTF-8"))
+                : new BinaryScanSink(new FileOutputStream(scanFile));
+            try {
+                runner = new MissionRunner(r0, sink, lookahead);
+                long scans = runner.run(mission);
+                System.out.println(scans + " scans written to " + scanFile);
+            }
+            finally {
+                sink.close();
+                mission.close();
+            }
+        } catch(Exception e) {
+            System.out.println(e);
+            failed = true;
+        }
+
+        if (runner == null || !runner.isEnded()) {
+            try {
+                r0.end();
+            } catch(Exception e) {
+                System.out.println(e);
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
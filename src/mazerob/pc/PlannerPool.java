@@ -0,0 +1,43 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread pool shared by the planners created without an explicit one
+ *
+ * <p>{@link mazerob.pc.SpeculativePlanner} and {@link
+ * mazerob.pc.FrontierPlanner} only wait for their own tasks, never submit
+ * from one, so they can share it without deadlock.  Its threads are
+ * daemons and do not keep the program running.</p>
+ *
+ * @author Pedro I. López
+ *
+ */
+final class PlannerPool {
+    /** The pool, created on first use */
+    private static ExecutorService executor;
+
+    private PlannerPool() {
+    }
+
+    /** @return Pool of one thread per available processor */
+    static synchronized ExecutorService get() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "planner");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        }
+        return executor;
+    }
+}
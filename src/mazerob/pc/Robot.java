@@ -3,9 +3,12 @@
 
 package mazerob.pc;
 
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import lejos.pc.comm.NXTCommLogListener;
 import lejos.pc.comm.NXTConnector;
 import lejos.pc.comm.NXTCommFactory;
@@ -30,6 +33,14 @@ public class Robot implements RemotelyControllable {
     /** Data input stream object */
     private DataInputStream dis;
 
+    /** If true, every command is flushed to the link as soon as it is
+     * written */
+    private boolean autoFlush = true;
+
+    /** Calibration sent to {@link mazerob.nxt.Robot}, see {@link
+     * mazerob.pc.Robot#Robot} */
+    private double rotationSpeed, translationMagnitude, rotationMagnitude;
+
     /**
      * Connects to {@link mazerob.nxt.RobotApp} through Bluetooth and
      * sends {@link mazerob.nxt.Robot} instance configuration
@@ -74,22 +85,13 @@ public class Robot implements RemotelyControllable {
             System.exit(1);
         }
 
-        dos = new DataOutputStream(conn.getOutputStream());
+        dos = new DataOutputStream(
+            new BufferedOutputStream(conn.getOutputStream()));
         dis = new DataInputStream(conn.getInputStream());
 
         try {
-            dos.writeDouble(wheelDiameter);
-            dos.flush();
-            dos.writeDouble(trackWidth);
-            dos.flush();
-            dos.writeBoolean(reverse);
-            dos.flush();
-            dos.writeDouble(rotationSpeed);
-            dos.flush();
-            dos.writeDouble(translationMagnitude);
-            dos.flush();
-            dos.writeDouble(rotationMagnitude);
-            dos.flush();
+            configure(wheelDiameter, trackWidth, reverse, rotationSpeed,
+                translationMagnitude, rotationMagnitude);
         }
         catch(IOException e) {
             System.out.println(e);
@@ -98,6 +100,76 @@ public class Robot implements RemotelyControllable {
 
     }
 
+    /**
+     * Drives a {@link mazerob.nxt.RobotApp} over already open streams and
+     * sends {@link mazerob.nxt.Robot} instance configuration
+     *
+     * <p>Lets the command protocol run over any link, for example a socket
+     * to an emulator or in-memory streams in benchmarks.</p>
+     *
+     * @param in Stream of replies from {@link mazerob.nxt.RobotApp}
+     * @param out Stream of commands to {@link mazerob.nxt.RobotApp}
+     * @param wheelDiameter {@code wheelDiameter} argument to {@link
+     * mazerob.nxt.Robot#Robot}
+     * @param trackWidth {@code trackWidth} argument to {@link
+     * mazerob.nxt.Robot#Robot}
+     * @param reverse {@code reverse} argument to {@link
+     * mazerob.nxt.Robot#Robot}
+     * @param rotationSpeed {@code rotationSpeed} argument to {@link
+     * mazerob.nxt.Robot#Robot}
+     * @param translationMagnitude {@code translationMagnitude} argument to
+     * {@link mazerob.nxt.Robot#Robot}
+     * @param rotationMagnitude {@code rotationMagnitude} argument to {@link
+     * mazerob.nxt.Robot#Robot}
+     *
+     * @throws IOException
+     *
+     */
+    public Robot(   InputStream in,
+                    OutputStream out,
+                    double wheelDiameter,
+                    double trackWidth,
+                    boolean reverse,
+                    double rotationSpeed,
+                    double translationMagnitude,
+                    double rotationMagnitude) throws IOException {
+
+        dos = new DataOutputStream(new BufferedOutputStream(out));
+        dis = new DataInputStream(in);
+        configure(wheelDiameter, trackWidth, reverse, rotationSpeed,
+            translationMagnitude, rotationMagnitude);
+    }
+
+    /**
+     * Sends {@link mazerob.nxt.Robot} instance configuration, in the order
+     * read by {@link mazerob.nxt.RobotApp#main}
+     *
+     * @throws IOException
+     *
+     */
+    private void configure(double wheelDiameter,
+                           double trackWidth,
+                           boolean reverse,
+                           double rotationSpeed,
+                           double translationMagnitude,
+                           double rotationMagnitude) throws IOException {
+        this.rotationSpeed = rotationSpeed;
+        this.translationMagnitude = translationMagnitude;
+        this.rotationMagnitude = rotationMagnitude;
+        dos.writeDouble(wheelDiameter);
+        dos.flush();
+        dos.writeDouble(trackWidth);
+        dos.flush();
+        dos.writeBoolean(reverse);
+        dos.flush();
+        dos.writeDouble(rotationSpeed);
+        dos.flush();
+        dos.writeDouble(translationMagnitude);
+        dos.flush();
+        dos.writeDouble(rotationMagnitude);
+        dos.flush();
+    }
+
     /**
      * Invokes {@link mazerob.nxt.Robot#translate}
      *
@@ -106,9 +178,9 @@ public class Robot implements RemotelyControllable {
      */
     public void translate(double distance) throws IOException {
         dos.writeInt(CommandCode.TRANSLATE.ordinal());
-        dos.flush();
+        send();
         dos.writeDouble(distance);
-        dos.flush();
+        send();
     }
 
     /** 
@@ -119,7 +191,7 @@ public class Robot implements RemotelyControllable {
      */
     public void translateForward() throws IOException {
         dos.writeInt(CommandCode.TRANSLATE_FORWARD.ordinal());
-        dos.flush();
+        send();
     }
 
     /** 
@@ -130,7 +202,7 @@ public class Robot implements RemotelyControllable {
      */
     public void translateBackward() throws IOException {
         dos.writeInt(CommandCode.TRANSLATE_BACKWARD.ordinal());
-        dos.flush();
+        send();
     }
 
     /** 
@@ -141,9 +213,9 @@ public class Robot implements RemotelyControllable {
      */
     public void rotate(double angle) throws IOException {
         dos.writeInt(CommandCode.ROTATE.ordinal());
-        dos.flush();
+        send();
         dos.writeDouble(angle);
-        dos.flush();
+        send();
     }
 
     /** 
@@ -154,7 +226,7 @@ public class Robot implements RemotelyControllable {
      */
     public void rotateRight() throws IOException {
         dos.writeInt(CommandCode.ROTATE_RIGHT.ordinal());
-        dos.flush();
+        send();
     }
 
     /** 
@@ -165,7 +237,7 @@ public class Robot implements RemotelyControllable {
      */
     public void rotateLeft() throws IOException {
         dos.writeInt(CommandCode.ROTATE_LEFT.ordinal());
-        dos.flush();
+        send();
     }
 
     /** 
@@ -177,19 +249,105 @@ public class Robot implements RemotelyControllable {
      *
      */
     public RangeReadings scan() throws IOException {
-        RangeReadings rangeValues = new RangeReadings(SCANNING_ANGLES.length);
+        RangeReadings rangeValues;
 
+        requestScan();
+        flush();
+        rangeValues = receiveScan();
+        rangeValues.printReadings();
+        return rangeValues;
+    }
+
+    /**
+     * Sends the {@link mazerob.nxt.Robot#scan} command without waiting for
+     * its readings
+     *
+     * <p>The NXT answers scans in the order they are requested; read each
+     * answer with {@link mazerob.pc.Robot#receiveScan}.  Other commands
+     * may be sent before reading it.</p>
+     *
+     * @throws IOException
+     *
+     */
+    public void requestScan() throws IOException {
         dos.writeInt(CommandCode.SCAN.ordinal());
-        dos.flush();
+        send();
+    }
+
+    /**
+     * Waits for the readings of the oldest scan sent with {@link
+     * mazerob.pc.Robot#requestScan} and not yet received
+     *
+     * <p>Unlike {@link mazerob.pc.Robot#scan} it does not print the
+     * readings.  With auto flush off, call {@link mazerob.pc.Robot#flush}
+     * first or the scan command may never reach the NXT.</p>
+     *
+     * @return Readings of the scan
+     *
+     * @throws IOException
+     *
+     */
+    public RangeReadings receiveScan() throws IOException {
+        RangeReadings rangeValues = new RangeReadings(SCANNING_ANGLES.length);
+
         rangeValues.loadObject(dis);
-        rangeValues.printReadings();
         return rangeValues;
     }
 
+    /**
+     * Sets whether commands are flushed to the link one by one (the
+     * default) or only on {@link mazerob.pc.Robot#flush}
+     *
+     * <p>Batching commands saves one Bluetooth packet per command when
+     * streaming long command sequences.</p>
+     *
+     * @param autoFlush If true, flush every command as it is written
+     *
+     */
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    /**
+     * Sends every command written so far
+     *
+     * @throws IOException
+     *
+     */
+    public void flush() throws IOException {
+        dos.flush();
+    }
+
+    /** Flushes the command just written unless auto flush is off */
+    private void send() throws IOException {
+        if (autoFlush) {
+            dos.flush();
+        }
+    }
+
+    /** @return Rotation speed of the vehicle, in degrees per second */
+    public double getRotationSpeed() {
+        return rotationSpeed;
+    }
+
+    /** @return Distance in mm of {@link mazerob.pc.Robot#translateForward}
+     * and {@link mazerob.pc.Robot#translateBackward} */
+    public double getTranslationMagnitude() {
+        return translationMagnitude;
+    }
+
+    /** @return Angle in degrees of {@link mazerob.pc.Robot#rotateRight}
+     * and {@link mazerob.pc.Robot#rotateLeft} */
+    public double getRotationMagnitude() {
+        return rotationMagnitude;
+    }
+
     /** 
      * Invokes {@link mazerob.nxt.Robot#end}
      *
-     * <p>Closes Bluetooth connection</p>
+     * <p>Closes Bluetooth connection, or the streams given to {@link
+     * mazerob.pc.Robot#Robot(InputStream, OutputStream, double, double,
+     * boolean, double, double, double)}</p>
      *
      * @see mazerob.conn.RemotelyControllable#end
      *
@@ -199,7 +357,9 @@ public class Robot implements RemotelyControllable {
         dos.flush();
         dis.close();
         dos.close();
-        conn.close();
+        if (conn != null) {
+            conn.close();
+        }
     }
 
 }
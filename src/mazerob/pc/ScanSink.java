@@ -0,0 +1,31 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.io.IOException;
+import lejos.robotics.RangeReadings;
+
+/**
+ * Destination of the readings of the scans of a mission, see {@link
+ * mazerob.pc.MissionRunner}
+ *
+ * @author Pedro I. López
+ *
+ */
+public interface ScanSink {
+    /** Stores the readings of one scan
+     *
+     * @param scan Number of the scan in the mission, starting at {@code 0}
+     * @param line Line of the mission script that requested the scan
+     * @param readings Readings of the scan
+     *
+     * @throws IOException
+     *
+     */
+    public void write(long scan, int line, RangeReadings readings)
+        throws IOException;
+
+    /** Flushes and closes the destination */
+    public void close() throws IOException;
+}
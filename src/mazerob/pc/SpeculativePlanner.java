@@ -0,0 +1,284 @@
+/* This source code is released under the new BSD license, a copy of the
+ * license is in the distribution directory. */
+
+package mazerob.pc;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import lejos.robotics.RangeReadings;
+import mazerob.conn.RemotelyControllable;
+
+/**
+ * Plans the next move for every possible outcome of a scan while the
+ * robot is still moving
+ *
+ * <p>{@link mazerob.pc.Robot#translate} and {@link
+ * mazerob.pc.Robot#rotate} return as soon as the command is sent, while
+ * {@link mazerob.pc.Robot#scan} blocks until the NXT has finished moving
+ * and scanning.  A solver can use that time:</p>
+ *
+ * <pre>
+ * robot.translateForward();
+ * planner.speculate(decision, readingsMask);
+ * Move move = planner.await(robot.scan());
+ * </pre>
+ *
+ * <p>An outcome is a bit mask over the indexes of {@link
+ * mazerob.conn.RemotelyControllable#SCANNING_ANGLES}, with bit {@code i}
+ * set if reading {@code i} shows an open passage (see {@link
+ * mazerob.pc.Heading#isOpen}).  {@link #speculate} submits one {@link
+ * mazerob.pc.SpeculativePlanner.Planner} call per outcome to a thread
+ * pool, restricted to the readings the decision depends on, and {@link
+ * #await} turns the real readings into an outcome and looks its plan up
+ * in a table, waiting only if that plan is not finished yet.</p>
+ *
+ * <p>Planners run concurrently with each other and with the caller from
+ * {@link #speculate} until {@link #await} or {@link #cancel} returns, so
+ * the caller must not modify the state they read in that time.  Both
+ * methods cancel the plans of the other outcomes and then wait for any
+ * planner still running to finish, since a planner that ignores
+ * interruption would otherwise keep reading while the caller moves on;
+ * planners that check {@link Thread#interrupted} end sooner.  Once they
+ * return the caller may update that state freely.</p>
+ *
+ * @param <P> Type of the plans
+ *
+ * @author Pedro I. López
+ *
+ */
+public class SpeculativePlanner<P> {
+    /** Number of possible outcomes of a scan */
+    private static final int OUTCOMES =
+        1 << RemotelyControllable.SCANNING_ANGLES.length;
+
+    /** Pool running the planners */
+    private final ExecutorService executor;
+
+    /** Readings farther than this, in mm, are open */
+    private final double threshold;
+
+    /** Plan of every outcome of the current speculation, indexed by
+     * outcome masked with {@link #readingsMask} */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Future<P>[] plans = new Future[OUTCOMES];
+
+    /** Readings the current speculation depends on */
+    private int readingsMask;
+
+    /** True between {@link #speculate} and {@link #await} */
+    private boolean pending;
+
+    /** Guards {@link #generation} and {@link #running} */
+    private final Object lock = new Object();
+
+    /** Number of the current speculation; planners of older ones do not
+     * start */
+    private long generation;
+
+    /** Planners started and not finished yet */
+    private int running;
+
+    /** Plans that were finished, or had to be waited for, when asked */
+    private long ready, waited;
+
+    /**
+     * Function from a scan outcome to a plan
+     *
+     * @param <P> Type of the plans
+     */
+    public interface Planner<P> {
+        /**
+         * @param outcome Bit mask of open readings
+         *
+         * @return Plan to follow if the scan gives that outcome
+         *
+         * @throws Exception
+         */
+        public P plan(int outcome) throws Exception;
+    }
+
+    /**
+     * Creates a planner running on the pool shared by the planners of
+     * this package, one thread per available processor
+     *
+     * @param threshold Readings farther than this, in mm, are open;
+     * usually the translation magnitude
+     *
+     */
+    public SpeculativePlanner(double threshold) {
+        this(PlannerPool.get(), threshold);
+    }
+
+    /**
+     * @param executor Pool running the planners
+     * @param threshold Readings farther than this, in mm, are open
+     *
+     */
+    public SpeculativePlanner(ExecutorService executor, double threshold) {
+        this.executor = executor;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Starts planning every outcome that differs in the readings of
+     * {@code readingsMask}, cancelling any previous speculation
+     *
+     * @param planner Function from outcome to plan
+     * @param readingsMask Bit mask of the readings the plan depends on
+     *
+     */
+    public void speculate(final Planner<P> planner, int readingsMask) {
+        cancel();
+        this.readingsMask = readingsMask;
+
+        final long current;
+        synchronized (lock) {
+            current = generation;
+        }
+
+        // enumerate every submask of readingsMask
+        int outcome = readingsMask;
+        while (true) {
+            final int speculated = outcome;
+            plans[outcome] = executor.submit(new Callable<P>() {
+                public P call() throws Exception {
+                    synchronized (lock) {
+                        if (generation != current) {
+                            throw new CancellationException();
+                        }
+                        running++;
+                    }
+                    try {
+                        return planner.plan(speculated);
+                    }
+                    finally {
+                        synchronized (lock) {
+                            if (--running == 0) {
+                                lock.notifyAll();
+                            }
+                        }
+                    }
+                }
+            });
+            if (outcome == 0) {
+                break;
+            }
+            outcome = (outcome - 1) & readingsMask;
+        }
+        pending = true;
+    }
+
+    /**
+     * Returns the plan of the outcome of {@code readings}, cancels the
+     * plans of the other outcomes and waits for any planner still running
+     *
+     * @param readings Readings of the scan that was speculated on
+     *
+     * @return Plan of the outcome
+     *
+     * @throws ExecutionException If the planner failed for that outcome
+     * @throws InterruptedException
+     */
+    public P await(RangeReadings readings)
+            throws ExecutionException, InterruptedException {
+        return await(outcomeOf(readings, threshold));
+    }
+
+    /**
+     * @param outcome Bit mask of open readings
+     *
+     * @return Plan of the outcome
+     *
+     * @throws ExecutionException If the planner failed for that outcome
+     * @throws InterruptedException
+     *
+     * @see #await(RangeReadings)
+     */
+    public P await(int outcome)
+            throws ExecutionException, InterruptedException {
+        if (!pending) {
+            throw new IllegalStateException("Nothing speculated");
+        }
+
+        Future<P> plan = plans[outcome & readingsMask];
+        if (plan.isDone()) {
+            ready++;
+        }
+        else {
+            waited++;
+        }
+        try {
+            return plan.get();
+        }
+        finally {
+            plans[outcome & readingsMask] = null;
+            cancel();
+        }
+    }
+
+    /**
+     * Cancels the plans of the current speculation, if any, and waits for
+     * the planners already running to finish
+     *
+     * <p>Waiting is not interruptible; if the caller is interrupted the
+     * interrupt status is set again on return.</p>
+     *
+     */
+    public void cancel() {
+        boolean interrupted = false;
+
+        synchronized (lock) {
+            generation++;
+        }
+        for (int i = 0; i < plans.length; i++) {
+            if (plans[i] != null) {
+                plans[i].cancel(true);
+                plans[i] = null;
+            }
+        }
+        synchronized (lock) {
+            while (running > 0) {
+                try {
+                    lock.wait();
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        pending = false;
+    }
+
+    /** @return Number of plans that were finished when asked for */
+    public long getReadyCount() {
+        return ready;
+    }
+
+    /** @return Number of plans that had to be waited for */
+    public long getWaitedCount() {
+        return waited;
+    }
+
+    /**
+     * @param readings Readings of a scan, in cm
+     * @param threshold Readings farther than this, in mm, are open
+     *
+     * @return Bit mask of open readings
+     */
+    public static int outcomeOf(RangeReadings readings, double threshold) {
+        int outcome = 0;
+
+        for (int i = 0; i < RemotelyControllable.SCANNING_ANGLES.length; i++) {
+            if (Heading.isOpen(readings.getRange(i), threshold)) {
+                outcome |= 1 << i;
+            }
+        }
+        return outcome;
+    }
+}